@@ -1,8 +1,52 @@
 package com.huzaifaproject.inventoryservice.config;
 
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Properties;
 
-// Placeholder configuration kept so the package is ready for future settings
 @Configuration
 public class KafkaConsumerConfig {
+
+    // Batch container for order-placed: each poll is handed over as one list and acknowledged once it is applied.
+    // Each of the concurrent consumers owns whole partitions, so events of one order key are never reordered
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> orderBatchListenerContainerFactory(
+            ConsumerFactory<String, String> consumerFactory,
+            KafkaTemplate<String, String> kafkaTemplate,
+            @Value("${app.topics.order-placed-dead-letter:order-placed.DLT}") String deadLetterTopic,
+            @Value("${app.kafka.order-placed.max-poll-records:500}") int maxPollRecords,
+            @Value("${app.kafka.order-placed.concurrency:3}") int concurrency,
+            @Value("${app.kafka.order-placed.retry-interval-ms:1000}") long retryIntervalMs,
+            @Value("${app.kafka.order-placed.retry-attempts:3}") long retryAttempts) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        Properties consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        containerProperties.setKafkaConsumerProperties(consumerProperties);
+
+        // A failed batch is retried as a whole; already applied orders are skipped through t_processed_orders.
+        // Once the retries are used up its records go to the dead-letter topic, so one poison order cannot stall
+        // the partition; the partition is left to Kafka because order-placed may have more partitions than the DLT
+        DeadLetterPublishingRecoverer deadLetterRecoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (consumerRecord, ex) -> new TopicPartition(deadLetterTopic, -1));
+        factory.setCommonErrorHandler(
+                new DefaultErrorHandler(deadLetterRecoverer, new FixedBackOff(retryIntervalMs, retryAttempts)));
+        return factory;
+    }
 }
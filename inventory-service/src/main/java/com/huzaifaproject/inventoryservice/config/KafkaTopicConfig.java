@@ -0,0 +1,35 @@
+package com.huzaifaproject.inventoryservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+
+// Provisions the topics inventory-service produces; KafkaAdmin creates them, or adds partitions, on startup
+@Configuration
+public class KafkaTopicConfig {
+
+    @Value("${app.kafka.partitions:6}")
+    private int partitions;
+
+    @Value("${app.kafka.replication-factor:1}")
+    private short replicationFactor;
+
+    @Bean
+    public KafkaAdmin.NewTopics inventoryTopics(
+            @Value("${app.topics.inventory-stock-changed:inventory-stock-changed}") String stockChangedTopic,
+            @Value("${app.topics.inventory-reservation:inventory-reservation}") String reservationTopic,
+            @Value("${app.topics.order-placed-dead-letter:order-placed.DLT}") String orderPlacedDeadLetterTopic) {
+        return new KafkaAdmin.NewTopics(topic(stockChangedTopic), topic(reservationTopic),
+                topic(orderPlacedDeadLetterTopic));
+    }
+
+    private NewTopic topic(String name) {
+        return TopicBuilder.name(name)
+                .partitions(partitions)
+                .replicas(replicationFactor)
+                .build();
+    }
+}
@@ -1,12 +1,26 @@
 package com.huzaifaproject.inventoryservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.huzaifaproject.inventoryservice.dto.InventoryLookupRequest;
 import com.huzaifaproject.inventoryservice.dto.InventoryResponse;
 import com.huzaifaproject.inventoryservice.exception.InventoryServiceException;
 import com.huzaifaproject.inventoryservice.service.InventoryService;
+import com.huzaifaproject.inventoryservice.service.StockIndex;
+import com.huzaifaproject.inventoryservice.service.StockStreamBroadcaster;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,14 +31,72 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final StockIndex stockIndex;
+    private final StockStreamBroadcaster stockStreamBroadcaster;
+    private final ObjectMapper objectMapper;
 
+    @Value("${app.inventory.lookup.max-sku-codes:100000}")
+    private int maxLookupSkuCodes;
+
+    @Value("${app.inventory.stream.max-sku-codes:1000}")
+    private int maxStreamSkuCodes;
+
+    // Pollers send back the ETag; while no indexed stock changed they get a 304 without any lookup
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<InventoryResponse> isInStock(@RequestParam List<String> skuCode) {
+    public ResponseEntity<List<InventoryResponse>> isInStock(@RequestParam List<String> skuCode, WebRequest webRequest) {
+        if (skuCode == null || skuCode.isEmpty()) {
+            throw new InventoryServiceException("At least one skuCode query parameter is required");
+        }
+        String etag = stockIndex.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         log.info("Received inventory check request for skuCode: {}", skuCode);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(inventoryService.isInStock(skuCode));
+    }
+
+    // Live stock levels for the given SKUs; see StockStreamBroadcaster for the event and buffering rules
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStock(@RequestParam List<String> skuCode) {
         if (skuCode == null || skuCode.isEmpty()) {
             throw new InventoryServiceException("At least one skuCode query parameter is required");
         }
-        return inventoryService.isInStock(skuCode);
+        if (skuCode.size() > maxStreamSkuCodes) {
+            throw new InventoryServiceException("At most " + maxStreamSkuCodes + " skuCodes can be streamed at once");
+        }
+        return stockStreamBroadcaster.subscribe(skuCode);
+    }
+
+    // For baskets and sync jobs too large for query params; results are written out as they are found
+    @PostMapping("/lookup")
+    public ResponseEntity<StreamingResponseBody> lookup(@RequestBody InventoryLookupRequest request) {
+        List<String> skuCodes = request.getSkuCodes();
+        if (skuCodes == null || skuCodes.isEmpty()) {
+            throw new InventoryServiceException("At least one skuCode is required");
+        }
+        if (skuCodes.size() > maxLookupSkuCodes) {
+            throw new InventoryServiceException("At most " + maxLookupSkuCodes + " skuCodes can be looked up at once");
+        }
+        log.info("Received bulk inventory lookup for {} skuCodes", skuCodes.size());
+
+        StreamingResponseBody body = outputStream -> {
+            // The servlet stream flushes as its buffer fills; a flush per element would mean a write per SKU
+            ObjectWriter writer = objectMapper.writerFor(InventoryResponse.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                inventoryService.lookup(skuCodes, response -> writeResponse(writer, generator, response));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @SneakyThrows
+    private static void writeResponse(ObjectWriter writer, JsonGenerator generator, InventoryResponse response) {
+        writer.writeValue(generator, response);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.huzaifaproject.inventoryservice.controller;
+
+import com.huzaifaproject.inventoryservice.dto.ReservationRequest;
+import com.huzaifaproject.inventoryservice.dto.ReservationResponse;
+import com.huzaifaproject.inventoryservice.service.ReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/inventory/reservations")
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationController {
+
+    private final ReservationService reservationService;
+
+    // 201 with the reservation, or 409 naming the SKUs without enough stock
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public ReservationResponse reserve(@RequestBody ReservationRequest request) {
+        log.debug("Reserving stock for {}", request.getReservationId());
+        return reservationService.reserve(request);
+    }
+
+    @GetMapping("/{reservationId}")
+    @ResponseStatus(HttpStatus.OK)
+    public ReservationResponse getReservation(@PathVariable String reservationId) {
+        return reservationService.getReservation(reservationId);
+    }
+
+    @PostMapping("/{reservationId}/commit")
+    @ResponseStatus(HttpStatus.OK)
+    public ReservationResponse commit(@PathVariable String reservationId) {
+        log.debug("Committing reservation {}", reservationId);
+        return reservationService.commit(reservationId);
+    }
+
+    @PostMapping("/{reservationId}/release")
+    @ResponseStatus(HttpStatus.OK)
+    public ReservationResponse release(@PathVariable String reservationId) {
+        log.debug("Releasing reservation {}", reservationId);
+        return reservationService.release(reservationId);
+    }
+}
@@ -0,0 +1,17 @@
+package com.huzaifaproject.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class InventoryLookupRequest {
+    // Duplicates are looked up once; unknown SKUs are left out of the response
+    private List<String> skuCodes;
+}
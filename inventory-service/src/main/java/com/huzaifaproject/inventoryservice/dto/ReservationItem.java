@@ -0,0 +1,13 @@
+package com.huzaifaproject.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationItem {
+    private String skuCode;
+    private Integer quantity;
+}
@@ -0,0 +1,20 @@
+package com.huzaifaproject.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReservationRequest {
+    // Optional; makes a retried reserve return the original reservation. Generated when absent
+    private String reservationId;
+    private List<ReservationItem> items;
+    // Optional; the configured default applies when absent
+    private Long ttlSeconds;
+}
@@ -0,0 +1,21 @@
+package com.huzaifaproject.inventoryservice.dto;
+
+import com.huzaifaproject.inventoryservice.model.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReservationResponse {
+    private String reservationId;
+    private ReservationStatus status;
+    private Instant expiresAt;
+    private List<ReservationItem> items;
+}
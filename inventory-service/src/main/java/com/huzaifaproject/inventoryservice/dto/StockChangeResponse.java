@@ -0,0 +1,17 @@
+package com.huzaifaproject.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StockChangeResponse {
+    private String skuCode;
+    private Integer quantity;
+    // Change since the previous event of this SKU on the same stream; null on its first event
+    private Integer delta;
+}
@@ -0,0 +1,5 @@
+package com.huzaifaproject.inventoryservice.event;
+
+// Compensation from order-service: the stock reserved for this order is no longer needed
+public record InventoryReleaseEvent(String orderNumber) {
+}
@@ -0,0 +1,7 @@
+package com.huzaifaproject.inventoryservice.event;
+
+import java.time.Instant;
+
+// Answer to an OrderCreatedEvent; reason explains a refusal, expiresAt is when a held reservation lapses
+public record InventoryReservationEvent(String orderNumber, boolean reserved, String reason, Instant expiresAt) {
+}
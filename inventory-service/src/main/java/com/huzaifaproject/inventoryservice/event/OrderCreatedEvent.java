@@ -0,0 +1,10 @@
+package com.huzaifaproject.inventoryservice.event;
+
+import java.util.List;
+
+// Published by order-service when an order is accepted asynchronously and needs its stock reserved
+public record OrderCreatedEvent(String orderNumber, List<LineItem> lineItems) {
+
+    public record LineItem(String skuCode, Integer quantity) {
+    }
+}
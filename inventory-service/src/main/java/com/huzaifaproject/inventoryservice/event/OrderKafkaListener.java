@@ -1,18 +1,81 @@
 package com.huzaifaproject.inventoryservice.event;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.inventoryservice.service.InventoryService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
-// Listens for basic order messages coming from Kafka
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Applies placed orders to stock one poll at a time
 @Component
 @Slf4j
 public class OrderKafkaListener {
 
-    // Consumes plain text messages from the order-placed topic
-    @KafkaListener(topics = "${app.topics.order-placed:order-placed}", groupId = "${spring.kafka.consumer.group-id}")
-    public void handleOrderMessage(String message) {
-        // Logs the received message so we can confirm the async flow
-        log.info("Received Kafka message: {}", message);
+    private final InventoryService inventoryService;
+    private final ObjectMapper objectMapper;
+    private final DistributionSummary batchSize;
+    private final Timer batchProcessing;
+    // Age in milliseconds of the oldest record of the last batch
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OrderKafkaListener(InventoryService inventoryService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.inventoryService = inventoryService;
+        this.objectMapper = objectMapper;
+        this.batchSize = DistributionSummary.builder("inventory.order.batch.size")
+                .description("order-placed records per poll")
+                .register(meterRegistry);
+        this.batchProcessing = Timer.builder("inventory.order.batch.processing")
+                .description("Time to apply one poll of order-placed records")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("inventory.order.consumer.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest order-placed record in the last batch")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = "${app.topics.order-placed:order-placed}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "orderBatchListenerContainerFactory")
+    public void handleOrderMessages(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        long oldestTimestamp = records.stream().mapToLong(ConsumerRecord::timestamp).min().orElse(System.currentTimeMillis());
+        lagMillis.set(Math.max(0, System.currentTimeMillis() - oldestTimestamp));
+        batchSize.record(records.size());
+
+        List<OrderPlacedEvent> orders = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> consumerRecord : records) {
+            OrderPlacedEvent order = parse(consumerRecord.value());
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+
+        Collection<String> changedSkuCodes = batchProcessing.record(() -> inventoryService.applyPlacedOrders(orders));
+        acknowledgment.acknowledge();
+        inventoryService.publishStockLevels(changedSkuCodes);
+    }
+
+    // Events written before order-placed carried line items are just the order number
+    private OrderPlacedEvent parse(String message) {
+        if (!message.startsWith("{")) {
+            return new OrderPlacedEvent(message, List.of(), true);
+        }
+        try {
+            return objectMapper.readValue(message, OrderPlacedEvent.class);
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring malformed order-placed message: {}", message);
+            return null;
+        }
     }
 }
@@ -0,0 +1,10 @@
+package com.huzaifaproject.inventoryservice.event;
+
+import java.util.List;
+
+// Published by order-service for every placed order; stockReserved orders already hold a reservation here
+public record OrderPlacedEvent(String orderNumber, List<LineItem> lineItems, boolean stockReserved) {
+
+    public record LineItem(String skuCode, Integer quantity) {
+    }
+}
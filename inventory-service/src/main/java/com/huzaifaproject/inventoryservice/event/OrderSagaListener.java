@@ -0,0 +1,75 @@
+package com.huzaifaproject.inventoryservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.inventoryservice.dto.ReservationItem;
+import com.huzaifaproject.inventoryservice.dto.ReservationRequest;
+import com.huzaifaproject.inventoryservice.dto.ReservationResponse;
+import com.huzaifaproject.inventoryservice.exception.ReservationConflictException;
+import com.huzaifaproject.inventoryservice.model.ReservationStatus;
+import com.huzaifaproject.inventoryservice.service.ReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Inventory's part of the order saga: answers reservation requests and handles releases
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSagaListener {
+
+    @Value("${app.topics.inventory-reservation:inventory-reservation}")
+    private String reservationTopic;
+
+    private final ReservationService reservationService;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Keyed by order number: orders are handled in parallel, and the events of one order stay in order
+    @KafkaListener(topics = "${app.topics.order-created:order-created}", groupId = "${spring.kafka.consumer.group-id}",
+            concurrency = "${app.kafka.listener-concurrency:3}")
+    public void handleOrderCreated(String message) throws JsonProcessingException {
+        OrderCreatedEvent event = objectMapper.readValue(message, OrderCreatedEvent.class);
+        InventoryReservationEvent answer = reserve(event);
+        log.info("Reservation for order {}: {}", event.orderNumber(), answer.reserved());
+
+        // Keyed by orderNumber so every saga message of one order lands on the same partition
+        kafkaTemplate.send(reservationTopic, event.orderNumber(), objectMapper.writeValueAsString(answer));
+    }
+
+    @KafkaListener(topics = "${app.topics.inventory-release:inventory-release}", groupId = "${spring.kafka.consumer.group-id}",
+            concurrency = "${app.kafka.listener-concurrency:3}")
+    public void handleInventoryRelease(String message) throws JsonProcessingException {
+        InventoryReleaseEvent event = objectMapper.readValue(message, InventoryReleaseEvent.class);
+        try {
+            reservationService.releaseOrTombstone(event.orderNumber());
+            log.info("Released inventory for order {}", event.orderNumber());
+        } catch (ReservationConflictException ex) {
+            log.warn("Could not release inventory for order {}: {}", event.orderNumber(), ex.getMessage());
+        }
+    }
+
+    // The order number is the reservation id, so a redelivered event finds the reservation it already made
+    private InventoryReservationEvent reserve(OrderCreatedEvent event) {
+        List<ReservationItem> items = event.lineItems().stream()
+                .map(lineItem -> new ReservationItem(lineItem.skuCode(), lineItem.quantity()))
+                .toList();
+        try {
+            ReservationResponse reservation = reservationService.reserve(ReservationRequest.builder()
+                    .reservationId(event.orderNumber())
+                    .items(items)
+                    .build());
+            boolean held = reservation.getStatus() == ReservationStatus.RESERVED
+                    || reservation.getStatus() == ReservationStatus.COMMITTED;
+            return new InventoryReservationEvent(event.orderNumber(), held,
+                    held ? null : "Reservation is " + reservation.getStatus(), held ? reservation.getExpiresAt() : null);
+        } catch (ReservationConflictException ex) {
+            return new InventoryReservationEvent(event.orderNumber(), false, ex.getMessage(), null);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.huzaifaproject.inventoryservice.event;
+
+// Current stock level of a SKU, published whenever its quantity changes
+public record StockChangedEvent(String skuCode, Integer quantity) {
+}
@@ -0,0 +1,32 @@
+package com.huzaifaproject.inventoryservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+// Publishes stock levels so order-service can keep its availability near-cache fresh
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockChangedEventProducer {
+
+    @Value("${app.topics.inventory-stock-changed:inventory-stock-changed}")
+    private String stockChangedTopic;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Keyed by skuCode so all changes of one SKU stay in order on a single partition
+    public void publishStockChanged(String skuCode, Integer quantity) {
+        try {
+            String payload = objectMapper.writeValueAsString(new StockChangedEvent(skuCode, quantity));
+            kafkaTemplate.send(stockChangedTopic, skuCode, payload);
+        } catch (JsonProcessingException ex) {
+            log.error("Failed to serialize stock change for {}: {}", skuCode, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.huzaifaproject.inventoryservice.exception;
+
+// Not enough stock to reserve, or a reservation that is no longer in a state allowing the operation
+public class ReservationConflictException extends RuntimeException {
+
+    public ReservationConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.huzaifaproject.inventoryservice.exception;
+
+public class ReservationNotFoundException extends RuntimeException {
+
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
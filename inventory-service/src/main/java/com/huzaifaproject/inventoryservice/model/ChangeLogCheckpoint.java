@@ -0,0 +1,26 @@
+package com.huzaifaproject.inventoryservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Last stock change log entry of one log file that is known to be in Postgres
+@Entity
+@Table(name = "t_inventory_change_log_checkpoints")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeLogCheckpoint {
+
+    @Id
+    private String logId;
+    private Long flushedSequence;
+    private Instant flushedAt;
+}
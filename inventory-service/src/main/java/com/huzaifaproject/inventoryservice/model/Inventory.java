@@ -8,7 +8,7 @@ import lombok.Setter;
 import jakarta.persistence.*;
 
 @Entity
-@Table
+@Table(indexes = @Index(name = "uk_inventory_sku_code", columnList = "skuCode", unique = true))
 @Getter
 @Setter
 @AllArgsConstructor
@@ -0,0 +1,39 @@
+package com.huzaifaproject.inventoryservice.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Stock taken out of inventory for a caller-chosen reservationId (the order number for saga orders)
+@Entity
+@Table(name = "t_inventory_reservations", indexes = {
+        @Index(name = "uk_inventory_reservations_reservation_id", columnList = "reservation_id", unique = true),
+        // Backs the expiry sweep
+        @Index(name = "idx_inventory_reservations_status_expires_at", columnList = "status, expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class InventoryReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_reservation_seq")
+    @SequenceGenerator(name = "inventory_reservation_seq", sequenceName = "t_inventory_reservations_seq", allocationSize = 50)
+    private Long id;
+    private String reservationId;
+
+    @Enumerated(EnumType.STRING)
+    private ReservationStatus status;
+    private Instant createdAt;
+    private Instant expiresAt;
+
+    @ElementCollection
+    @CollectionTable(name = "t_inventory_reservation_lines",
+            joinColumns = @JoinColumn(name = "inventory_reservation_id"))
+    private List<ReservationLine> lines = new ArrayList<>();
+}
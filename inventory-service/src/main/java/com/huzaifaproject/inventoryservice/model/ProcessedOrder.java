@@ -0,0 +1,27 @@
+package com.huzaifaproject.inventoryservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Orders whose stock change has been applied, so a redelivered order-placed event is not applied twice
+@Entity
+// processed_at backs the retention sweep
+@Table(name = "t_processed_orders", indexes = @Index(name = "idx_processed_orders_processed_at", columnList = "processed_at"))
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProcessedOrder {
+
+    @Id
+    private String orderNumber;
+    private Instant processedAt;
+}
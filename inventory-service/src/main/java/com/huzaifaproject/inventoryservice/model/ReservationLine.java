@@ -0,0 +1,17 @@
+package com.huzaifaproject.inventoryservice.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Embeddable
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationLine {
+    private String skuCode;
+    private Integer quantity;
+}
@@ -0,0 +1,9 @@
+package com.huzaifaproject.inventoryservice.model;
+
+// RESERVED holds stock; COMMITTED keeps it deducted for good; RELEASED and EXPIRED have given it back
+public enum ReservationStatus {
+    RESERVED,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,29 @@
+package com.huzaifaproject.inventoryservice.repository;
+
+import com.huzaifaproject.inventoryservice.model.InventoryReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+
+    Optional<InventoryReservation> findByReservationId(String reservationId);
+
+    List<InventoryReservation> findByReservationIdIn(Collection<String> reservationIds);
+
+    // Locks only the reservation row, so commit/release/expiry of one reservation never race each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<InventoryReservation> findForUpdateByReservationId(String reservationId);
+
+    // SKIP LOCKED lets several instances sweep concurrently and never waits on a reservation being committed
+    @Query(value = "SELECT * FROM t_inventory_reservations WHERE status = 'RESERVED' AND expires_at < :now "
+            + "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<InventoryReservation> lockExpired(@Param("now") Instant now, @Param("limit") int limit);
+}
@@ -1,33 +1,112 @@
 package com.huzaifaproject.inventoryservice.service;
 
 import com.huzaifaproject.inventoryservice.dto.InventoryResponse;
-import com.huzaifaproject.inventoryservice.repository.InventoryRepository;
+import com.huzaifaproject.inventoryservice.event.OrderPlacedEvent;
+import com.huzaifaproject.inventoryservice.event.StockChangedEventProducer;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class InventoryService {
 
-    private final InventoryRepository inventoryRepository;
+    private static final String FIND_BY_SKU_CODES_SQL = "SELECT sku_code, quantity FROM inventory WHERE sku_code = ANY(?)";
+
+    private final ReservationService reservationService;
+    private final StockChangedEventProducer stockChangedEventProducer;
+    private final StockIndex stockIndex;
+    private final StockWriteBehind stockWriteBehind;
+    private final JdbcTemplate jdbcTemplate;
 
-    @Transactional(readOnly = true)
-    @SneakyThrows
     public List<InventoryResponse> isInStock(List<String> skuCode) {
-        return inventoryRepository.findBySkuCodeIn(skuCode).stream()
-                .map(inventory ->
-                        InventoryResponse.builder()
-                                .skuCode(inventory.getSkuCode())
-                                .isInStock(inventory.getQuantity() > 0)
-                                .quantity(inventory.getQuantity())
-                                .build()
-                ).toList();
+        List<InventoryResponse> responses = new ArrayList<>(skuCode.size());
+        lookup(skuCode, responses::add);
+        return responses;
+    }
+
+    /**
+     * Hands each known SKU to the sink once. Served from the in-memory index; SKUs it has not seen yet go to
+     * Postgres as one array-bound query, so every miss set shares a single statement plan.
+     */
+    public void lookup(Collection<String> skuCodes, Consumer<InventoryResponse> sink) {
+        List<String> missing = new ArrayList<>();
+        for (String skuCode : new LinkedHashSet<>(skuCodes)) {
+            Integer quantity = stockIndex.get(skuCode);
+            if (quantity != null) {
+                sink.accept(toResponse(skuCode, quantity));
+            } else {
+                missing.add(skuCode);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_BY_SKU_CODES_SQL);
+            statement.setArray(1, connection.createArrayOf("text", missing.toArray()));
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            String skuCode = rs.getString(1);
+            stockIndex.putIfAbsent(skuCode, rs.getInt(2));
+            sink.accept(toResponse(skuCode, stockIndex.get(skuCode)));
+        });
     }
 
+    /**
+     * Applies a poll's worth of placed orders: reserved orders have their reservations committed, and all other
+     * orders go through the write-behind as one per-SKU delta batch. Returns the SKUs whose stock changed.
+     */
+    public Collection<String> applyPlacedOrders(List<OrderPlacedEvent> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        List<String> reservedOrderNumbers = new ArrayList<>();
+        List<OrderPlacedEvent> unreservedOrders = new ArrayList<>();
+        for (OrderPlacedEvent order : orders) {
+            if (order.stockReserved()) {
+                reservedOrderNumbers.add(order.orderNumber());
+            } else {
+                unreservedOrders.add(order);
+            }
+        }
+
+        // Committing is idempotent, so redelivered reserved orders need no processed marker
+        if (!reservedOrderNumbers.isEmpty()) {
+            reservationService.commitAll(reservedOrderNumbers);
+        }
+        Collection<String> changedSkuCodes = unreservedOrders.isEmpty()
+                ? List.of()
+                : stockWriteBehind.apply(unreservedOrders);
+        log.info("Applied {} placed orders as {} SKU deltas", orders.size(), changedSkuCodes.size());
+        return changedSkuCodes;
+    }
+
+    // Publishes the indexed stock level of each SKU so order-service near-caches follow
+    public void publishStockLevels(Collection<String> skuCodes) {
+        for (String skuCode : skuCodes) {
+            Integer quantity = stockIndex.get(skuCode);
+            if (quantity != null) {
+                stockChangedEventProducer.publishStockChanged(skuCode, quantity);
+            }
+        }
+    }
+
+    private static InventoryResponse toResponse(String skuCode, int quantity) {
+        return InventoryResponse.builder()
+                .skuCode(skuCode)
+                .isInStock(quantity > 0)
+                .quantity(quantity)
+                .build();
+    }
 }
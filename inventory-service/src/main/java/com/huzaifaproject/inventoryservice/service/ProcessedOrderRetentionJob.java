@@ -0,0 +1,45 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+// Drops processed-order markers once order-placed can no longer redeliver their orders
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessedOrderRetentionJob {
+
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM t_processed_orders WHERE order_number IN "
+            + "(SELECT order_number FROM t_processed_orders WHERE processed_at < ? LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.inventory.processed-orders.retention-hours:192}")
+    private long retentionHours;
+
+    @Value("${app.inventory.processed-orders.sweep-batch-size:10000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.inventory.processed-orders.sweep-interval-ms:3600000}")
+    public void sweep() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(Duration.ofHours(retentionHours)));
+        // Bounded deletes keep each statement short next to the write-behind flush inserting markers
+        long deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(DELETE_EXPIRED_SQL, cutoff, batchSize);
+            deleted += batch;
+        } while (batch == batchSize);
+        if (deleted > 0) {
+            log.info("Removed {} processed-order markers older than {}", deleted, cutoff.toInstant());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Gives back the stock of reservations that were neither committed nor released before their TTL
+@Component
+@RequiredArgsConstructor
+public class ReservationExpiryJob {
+
+    private final ReservationService reservationService;
+
+    @Value("${app.reservations.expiry-batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.reservations.expiry-interval-ms:5000}")
+    public void expireReservations() {
+        // One short transaction per batch keeps the inventory rows locked only briefly
+        int expired;
+        do {
+            expired = reservationService.expireReservations(batchSize);
+        } while (expired == batchSize);
+    }
+}
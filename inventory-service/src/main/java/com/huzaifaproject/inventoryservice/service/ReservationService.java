@@ -0,0 +1,490 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import com.huzaifaproject.inventoryservice.dto.ReservationItem;
+import com.huzaifaproject.inventoryservice.dto.ReservationRequest;
+import com.huzaifaproject.inventoryservice.dto.ReservationResponse;
+import com.huzaifaproject.inventoryservice.event.StockChangedEventProducer;
+import com.huzaifaproject.inventoryservice.exception.InventoryServiceException;
+import com.huzaifaproject.inventoryservice.exception.ReservationConflictException;
+import com.huzaifaproject.inventoryservice.exception.ReservationNotFoundException;
+import com.huzaifaproject.inventoryservice.model.InventoryReservation;
+import com.huzaifaproject.inventoryservice.model.ReservationLine;
+import com.huzaifaproject.inventoryservice.model.ReservationStatus;
+import com.huzaifaproject.inventoryservice.repository.InventoryReservationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reserve / commit / release of stock. Reservations are group-committed: concurrent requests are queued and a single
+ * committer takes them in groups, locking the inventory rows of a group once, deciding every reservation against
+ * the locked quantities and writing the group in one transaction. A hot SKU's row lock is then taken once per
+ * group rather than once per reservation. Release and expiry add the stock back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationService {
+
+    // Only run on rows locked by LOCK_STOCK_SQL in the same transaction, after the quantities have been checked
+    private static final String TAKE_STOCK_SQL =
+            "UPDATE inventory SET quantity = quantity - ? WHERE sku_code = ?";
+    private static final String RETURN_STOCK_SQL =
+            "UPDATE inventory SET quantity = quantity + ? WHERE sku_code = ?";
+    private static final String COMMIT_SQL =
+            "UPDATE t_inventory_reservations SET status = 'COMMITTED' WHERE reservation_id = ? AND status = 'RESERVED'";
+    // Locks the rows in skuCode order, the order every stock writer uses, so writers cannot deadlock. Postgres holds
+    // the locks until the transaction commits or rolls back
+    private static final String LOCK_STOCK_SQL =
+            "SELECT sku_code, quantity FROM inventory WHERE sku_code = ANY(?) ORDER BY sku_code FOR UPDATE";
+
+    private final InventoryReservationRepository reservationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StockChangedEventProducer stockChangedEventProducer;
+    private final StockIndex stockIndex;
+    private final StockWriteBehind stockWriteBehind;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.reservations.default-ttl-seconds:900}")
+    private long defaultTtlSeconds;
+
+    @Value("${app.reservations.max-ttl-seconds:3600}")
+    private long maxTtlSeconds;
+
+    @Value("${app.reservations.group-commit.max-size:256}")
+    private int maxGroupSize;
+
+    // Reservations waiting for the committer, and whether a committer task is running or about to
+    private final ConcurrentLinkedQueue<PendingReservation> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean committing = new AtomicBoolean();
+    private final ExecutorService groupCommitter = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("reservation-group-commit").daemon().factory());
+
+    /**
+     * Queues the reservation for the next group and waits for its outcome. A retried request (or a redelivered saga
+     * event) gets the reservation it already made.
+     */
+    public ReservationResponse reserve(ReservationRequest request) {
+        SortedMap<String, Integer> quantities = aggregate(request.getItems());
+        String reservationId = StringUtils.hasText(request.getReservationId())
+                ? request.getReservationId()
+                : UUID.randomUUID().toString();
+        PendingReservation pending = new PendingReservation(reservationId, quantities, resolveTtl(request.getTtlSeconds()));
+        queue.add(pending);
+        if (committing.compareAndSet(false, true)) {
+            groupCommitter.execute(this::commitQueued);
+        }
+        try {
+            return pending.result.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        groupCommitter.shutdown();
+    }
+
+    // Visible for tests
+    int queuedReservations() {
+        return queue.size();
+    }
+
+    // Runs on the committer thread until the queue is empty. A request queued while the flag is being cleared is seen
+    // either here, by the re-check, or by its caller, whose compareAndSet then succeeds
+    private void commitQueued() {
+        do {
+            List<PendingReservation> group = new ArrayList<>();
+            PendingReservation next;
+            while ((next = queue.poll()) != null) {
+                group.add(next);
+                if (group.size() == maxGroupSize || queue.isEmpty()) {
+                    commitGroup(group);
+                    group = new ArrayList<>();
+                }
+            }
+            committing.set(false);
+        } while (!queue.isEmpty() && committing.compareAndSet(false, true));
+    }
+
+    private void commitGroup(List<PendingReservation> group) {
+        Map<String, Integer> taken;
+        try {
+            taken = transactionTemplate.execute(status -> reserveGroup(group));
+        } catch (RuntimeException ex) {
+            if (group.size() > 1) {
+                // Typically a reservationId inserted by another instance meanwhile; alone, each gets its own answer
+                log.warn("Group of {} reservations failed, committing them one by one: {}", group.size(), ex.getMessage());
+                group.forEach(pending -> commitGroup(List.of(pending)));
+            } else if (ex instanceof DataIntegrityViolationException) {
+                // A concurrent request with the same reservationId inserted first and has committed (Postgres makes
+                // the losing INSERT wait for it); answer with that reservation, exactly as for a sequential retry
+                completeWithExisting(group.get(0), ex);
+            } else {
+                group.get(0).result.completeExceptionally(ex);
+            }
+            return;
+        }
+        // Committed: move the index by what was taken and answer the callers
+        taken.forEach((skuCode, quantity) -> stockIndex.add(skuCode, -quantity));
+        taken.keySet().forEach(skuCode -> stockChangedEventProducer.publishStockChanged(skuCode, null));
+        for (PendingReservation pending : group) {
+            if (pending.failure != null) {
+                pending.result.completeExceptionally(pending.failure);
+            } else {
+                pending.result.complete(pending.response);
+            }
+        }
+    }
+
+    // One transaction for the whole group: sets the outcome of each reservation and returns the stock taken per SKU
+    private Map<String, Integer> reserveGroup(List<PendingReservation> group) {
+        Map<String, PendingReservation> firstById = new LinkedHashMap<>();
+        for (PendingReservation pending : group) {
+            pending.response = null;
+            pending.failure = null;
+            firstById.putIfAbsent(pending.reservationId, pending);
+        }
+        List<PendingReservation> fresh = new ArrayList<>(firstById.values());
+        for (InventoryReservation existing : reservationRepository.findByReservationIdIn(firstById.keySet())) {
+            PendingReservation pending = firstById.get(existing.getReservationId());
+            pending.response = toResponse(existing);
+            fresh.remove(pending);
+        }
+
+        // Every row the group needs is locked once, and the reservations are decided in arrival order against it
+        SortedMap<String, Integer> requested = new TreeMap<>();
+        fresh.forEach(pending -> pending.quantities.forEach((skuCode, quantity) ->
+                requested.merge(skuCode, quantity, Integer::sum)));
+        Map<String, Integer> available = requested.isEmpty() ? new HashMap<>() : lockStock(requested.keySet());
+
+        Instant now = Instant.now();
+        List<InventoryReservation> reservations = new ArrayList<>();
+        SortedMap<String, Integer> taken = new TreeMap<>();
+        for (PendingReservation pending : fresh) {
+            List<String> unavailableSkuCodes = new ArrayList<>();
+            pending.quantities.forEach((skuCode, quantity) -> {
+                if (available.getOrDefault(skuCode, 0) < quantity) {
+                    unavailableSkuCodes.add(skuCode);
+                }
+            });
+            if (!unavailableSkuCodes.isEmpty()) {
+                pending.failure = new ReservationConflictException(
+                        "Insufficient stock for: " + String.join(", ", unavailableSkuCodes));
+                continue;
+            }
+            pending.quantities.forEach((skuCode, quantity) -> {
+                available.merge(skuCode, -quantity, Integer::sum);
+                taken.merge(skuCode, quantity, Integer::sum);
+            });
+
+            InventoryReservation reservation = new InventoryReservation();
+            reservation.setReservationId(pending.reservationId);
+            reservation.setStatus(ReservationStatus.RESERVED);
+            reservation.setCreatedAt(now);
+            reservation.setExpiresAt(now.plus(pending.ttl));
+            pending.quantities.forEach((skuCode, quantity) ->
+                    reservation.getLines().add(new ReservationLine(skuCode, quantity)));
+            reservations.add(reservation);
+            pending.response = toResponse(reservation);
+        }
+        if (!reservations.isEmpty()) {
+            reservationRepository.saveAllAndFlush(reservations);
+            takeStock(taken);
+        }
+
+        // A reservationId queued twice in one group gets the outcome of its first request, as a sequential retry would
+        for (PendingReservation pending : group) {
+            PendingReservation first = firstById.get(pending.reservationId);
+            pending.response = first.response;
+            pending.failure = first.failure;
+        }
+        log.debug("Group-committed {} reservations, {} new, taking {}", group.size(), reservations.size(), taken);
+        return taken;
+    }
+
+    private void completeWithExisting(PendingReservation pending, RuntimeException ex) {
+        try {
+            pending.result.complete(transactionTemplate.execute(status -> reservationRepository
+                    .findByReservationId(pending.reservationId)
+                    .map(this::toResponse)
+                    .orElseThrow(() -> ex)));
+        } catch (RuntimeException readFailure) {
+            pending.result.completeExceptionally(readFailure);
+        }
+    }
+
+    @Transactional
+    public ReservationResponse commit(String reservationId) {
+        InventoryReservation reservation = reservationRepository.findForUpdateByReservationId(reservationId)
+                .orElseThrow(() -> new ReservationNotFoundException("Reservation not found: " + reservationId));
+        return commit(reservation);
+    }
+
+    // For callers that commit every order, whether or not it was placed with a reservation
+    @Transactional
+    public Optional<ReservationResponse> commitIfPresent(String reservationId) {
+        return reservationRepository.findForUpdateByReservationId(reservationId).map(this::commit);
+    }
+
+    // Batch commit for the order-placed consumer. A reservation that expired first is committed late when its stock
+    // is still there; other reservations that are not RESERVED any more are left as they are
+    @Transactional
+    public void commitAll(List<String> reservationIds) {
+        List<Object[]> arguments = reservationIds.stream().map(id -> new Object[]{id}).toList();
+        int[] committed = jdbcTemplate.batchUpdate(COMMIT_SQL, arguments);
+        for (int i = 0; i < committed.length; i++) {
+            if (committed[i] == 0) {
+                commitLate(reservationIds.get(i));
+            }
+        }
+    }
+
+    @Transactional
+    public ReservationResponse release(String reservationId) {
+        return release(reservationRepository.findForUpdateByReservationId(reservationId)
+                .orElseThrow(() -> new ReservationNotFoundException("Reservation not found: " + reservationId)));
+    }
+
+    /**
+     * Saga release. A release can overtake its reservation request, so when there is nothing to release yet a
+     * RELEASED reservation without lines is recorded; the reservation request then finds it and is refused.
+     */
+    public ReservationResponse releaseOrTombstone(String reservationId) {
+        try {
+            return transactionTemplate.execute(status -> reservationRepository.findForUpdateByReservationId(reservationId)
+                    .map(this::release)
+                    .orElseGet(() -> tombstone(reservationId)));
+        } catch (DataIntegrityViolationException ex) {
+            // The reservation was made in the meantime; release it like any other
+            return transactionTemplate.execute(status -> release(reservationId));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public ReservationResponse getReservation(String reservationId) {
+        return reservationRepository.findByReservationId(reservationId)
+                .map(this::toResponse)
+                .orElseThrow(() -> new ReservationNotFoundException("Reservation not found: " + reservationId));
+    }
+
+    // Returns the stock of up to limit expired reservations; the caller repeats while full batches come back
+    @Transactional
+    public int expireReservations(int limit) {
+        List<InventoryReservation> expired = reservationRepository.lockExpired(Instant.now(), limit);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        expired.forEach(reservation -> reservation.setStatus(ReservationStatus.EXPIRED));
+        returnStock(expired);
+        log.info("Expired {} reservations", expired.size());
+        return expired.size();
+    }
+
+    // The expiry sweep already gave the stock back, so it is taken again, all lines or none. When it has been sold in
+    // the meantime the order cannot be undone from here any more and is reported as oversold
+    private void commitLate(String reservationId) {
+        InventoryReservation reservation = reservationRepository.findForUpdateByReservationId(reservationId).orElse(null);
+        if (reservation == null || reservation.getStatus() != ReservationStatus.EXPIRED) {
+            log.warn("Reservation {} was not RESERVED when its order was placed", reservationId);
+            return;
+        }
+
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        reservation.getLines().forEach(line -> quantities.merge(line.getSkuCode(), line.getQuantity(), Integer::sum));
+        List<String> unavailableSkuCodes = lockShortStock(quantities);
+        if (!unavailableSkuCodes.isEmpty()) {
+            log.error("Order {} was placed after its reservation expired and {} no longer have the stock: oversold",
+                    reservationId, unavailableSkuCodes);
+            return;
+        }
+
+        takeStock(quantities);
+        reservation.setStatus(ReservationStatus.COMMITTED);
+        SortedMap<String, Integer> taken = new TreeMap<>();
+        quantities.forEach((skuCode, quantity) -> taken.put(skuCode, -quantity));
+        publishStockChangedAfterCommit(taken);
+        log.warn("Reservation {} expired before its order was placed and was committed late", reservationId);
+    }
+
+    // Locks the inventory rows of all lines and returns the SKUs that cannot cover their quantity
+    private List<String> lockShortStock(SortedMap<String, Integer> quantities) {
+        Map<String, Integer> available = lockStock(quantities.keySet());
+        List<String> unavailableSkuCodes = new ArrayList<>();
+        quantities.forEach((skuCode, quantity) -> {
+            if (available.getOrDefault(skuCode, 0) < quantity) {
+                unavailableSkuCodes.add(skuCode);
+            }
+        });
+        return unavailableSkuCodes;
+    }
+
+    // Locks the rows and returns what can still be reserved: the stored quantity less the units unreserved orders
+    // took that the write-behind has not flushed yet. SKUs without an inventory row are left out
+    private Map<String, Integer> lockStock(Collection<String> skuCodes) {
+        Map<String, Integer> available = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_STOCK_SQL);
+            statement.setArray(1, connection.createArrayOf("text", skuCodes.toArray()));
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            String skuCode = rs.getString(1);
+            available.put(skuCode, rs.getInt(2) - stockWriteBehind.pendingDelta(skuCode));
+        });
+        return available;
+    }
+
+    private ReservationResponse release(InventoryReservation reservation) {
+        switch (reservation.getStatus()) {
+            case RESERVED -> {
+                reservation.setStatus(ReservationStatus.RELEASED);
+                returnStock(List.of(reservation));
+            }
+            case COMMITTED -> throw new ReservationConflictException(
+                    "Reservation " + reservation.getReservationId() + " is already committed");
+            default -> {
+                // Already released or expired: releasing again is a no-op
+            }
+        }
+        return toResponse(reservation);
+    }
+
+    private ReservationResponse tombstone(String reservationId) {
+        InventoryReservation reservation = new InventoryReservation();
+        reservation.setReservationId(reservationId);
+        reservation.setStatus(ReservationStatus.RELEASED);
+        reservation.setCreatedAt(Instant.now());
+        reservation.setExpiresAt(reservation.getCreatedAt());
+        // Flushed here so a reservation racing it hits the unique index now rather than at commit
+        reservationRepository.saveAndFlush(reservation);
+        log.info("Recorded release of reservation {} ahead of its request", reservationId);
+        return toResponse(reservation);
+    }
+
+    private ReservationResponse commit(InventoryReservation reservation) {
+        switch (reservation.getStatus()) {
+            // The stock was deducted when reserving, so committing only makes that final
+            case RESERVED -> reservation.setStatus(ReservationStatus.COMMITTED);
+            case COMMITTED -> {
+                // Committing again is a no-op
+            }
+            default -> throw new ReservationConflictException(
+                    "Reservation " + reservation.getReservationId() + " is " + reservation.getStatus());
+        }
+        return toResponse(reservation);
+    }
+
+    // One batched round trip, in skuCode order, on rows locked and checked by lockStock
+    private void takeStock(SortedMap<String, Integer> quantities) {
+        List<Object[]> arguments = new ArrayList<>(quantities.size());
+        quantities.forEach((skuCode, quantity) -> arguments.add(new Object[]{quantity, skuCode}));
+        jdbcTemplate.batchUpdate(TAKE_STOCK_SQL, arguments);
+    }
+
+    private void returnStock(List<InventoryReservation> reservations) {
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        for (InventoryReservation reservation : reservations) {
+            for (ReservationLine line : reservation.getLines()) {
+                quantities.merge(line.getSkuCode(), line.getQuantity(), Integer::sum);
+            }
+        }
+        List<Object[]> arguments = new ArrayList<>(quantities.size());
+        quantities.forEach((skuCode, quantity) -> arguments.add(new Object[]{quantity, skuCode}));
+        jdbcTemplate.batchUpdate(RETURN_STOCK_SQL, arguments);
+        publishStockChangedAfterCommit(quantities);
+    }
+
+    // Sorted by skuCode so concurrent multi-SKU reservations lock inventory rows in the same order and cannot deadlock
+    private SortedMap<String, Integer> aggregate(List<ReservationItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new InventoryServiceException("A reservation needs at least one item");
+        }
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        for (ReservationItem item : items) {
+            if (!StringUtils.hasText(item.getSkuCode()) || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new InventoryServiceException("Every reservation item needs a skuCode and a positive quantity");
+            }
+            quantities.merge(item.getSkuCode(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private Duration resolveTtl(Long ttlSeconds) {
+        if (ttlSeconds == null || ttlSeconds <= 0) {
+            return Duration.ofSeconds(defaultTtlSeconds);
+        }
+        return Duration.ofSeconds(Math.min(ttlSeconds, maxTtlSeconds));
+    }
+
+    // Moves the index by the committed change; the new level is not read back on the hot path, and a null quantity
+    // makes order-service drop its cached value
+    private void publishStockChangedAfterCommit(Map<String, Integer> changes) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changes.forEach(stockIndex::add);
+                changes.keySet().forEach(skuCode -> stockChangedEventProducer.publishStockChanged(skuCode, null));
+            }
+        });
+    }
+
+    private ReservationResponse toResponse(InventoryReservation reservation) {
+        List<ReservationItem> items = reservation.getLines().stream()
+                .map(line -> new ReservationItem(line.getSkuCode(), line.getQuantity()))
+                .toList();
+        return ReservationResponse.builder()
+                .reservationId(reservation.getReservationId())
+                .status(reservation.getStatus())
+                .expiresAt(reservation.getExpiresAt())
+                .items(items)
+                .build();
+    }
+
+    // A queued reservation. response and failure are set by the committer and handed to the caller through result
+    private static final class PendingReservation {
+
+        private final String reservationId;
+        private final SortedMap<String, Integer> quantities;
+        private final Duration ttl;
+        private final CompletableFuture<ReservationResponse> result = new CompletableFuture<>();
+        private ReservationResponse response;
+        private RuntimeException failure;
+
+        private PendingReservation(String reservationId, SortedMap<String, Integer> quantities, Duration ttl) {
+            this.reservationId = reservationId;
+            this.quantities = quantities;
+            this.ttl = ttl;
+        }
+    }
+}
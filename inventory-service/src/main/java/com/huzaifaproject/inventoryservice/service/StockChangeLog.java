@@ -0,0 +1,114 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Append-only file of stock deltas not yet written to Postgres, one JSON line per entry and fsynced per append.
+ * The first line names the log, which is the key of its checkpoint row.
+ */
+@Slf4j
+class StockChangeLog {
+
+    private static final String HEADER_PREFIX = "# log-id ";
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private String logId;
+    private FileChannel channel;
+
+    StockChangeLog(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    // Reads back the entries left by the previous run, creating the log on first start
+    List<Entry> open() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (Files.exists(path)) {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if (!lines.isEmpty() && lines.get(0).startsWith(HEADER_PREFIX)) {
+                logId = lines.get(0).substring(HEADER_PREFIX.length()).trim();
+            }
+            for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+                try {
+                    entries.add(objectMapper.readValue(line, Entry.class));
+                } catch (IOException ex) {
+                    // Only the last append can be torn; everything before it was fsynced
+                    log.warn("Dropping torn stock change log line: {}", line);
+                    break;
+                }
+            }
+        }
+        if (logId == null) {
+            logId = UUID.randomUUID().toString();
+        }
+        rewrite(entries);
+        return entries;
+    }
+
+    String logId() {
+        return logId;
+    }
+
+    // Returns once the entry is on disk
+    void append(Entry entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    // Replaces the log atomically with the given entries. On failure the old log stays in place and open for appends
+    void rewrite(List<Entry> entries) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            StringBuilder content = new StringBuilder(HEADER_PREFIX).append(logId).append('\n');
+            for (Entry entry : entries) {
+                content.append(objectMapper.writeValueAsString(entry)).append('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            try (FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    tempChannel.write(buffer);
+                }
+                tempChannel.force(true);
+            }
+            close();
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+            if (channel == null && Files.exists(path)) {
+                channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+        }
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // One consumer batch: the orders it covered and the per-SKU quantities they took
+    record Entry(long sequence, List<String> orderNumbers, Map<String, Integer> deltas) {
+    }
+}
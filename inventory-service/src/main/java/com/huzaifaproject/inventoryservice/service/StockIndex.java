@@ -0,0 +1,161 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stock levels: every SKU is interned to an int slot whose quantity lives in an atomic int array.
+ * Reads are a hash lookup plus a volatile read, and decrements are CAS loops, so neither ever takes a lock.
+ * Postgres stays the durable store; {@link StockWriteBehind} keeps the two in step.
+ */
+@Component
+public class StockIndex {
+
+    // Slots live in fixed-size chunks that are never copied, so a CAS can never land in a stale array
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final ConcurrentHashMap<String, Integer> slots = new ConcurrentHashMap<>();
+    // Bumped on every change; with the epoch it versions all indexed stock, so a restart never reuses an ETag
+    private final AtomicLong version = new AtomicLong();
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile AtomicIntegerArray[] chunks = new AtomicIntegerArray[0];
+    // Guarded by this
+    private int size;
+
+    public StockIndex(MeterRegistry meterRegistry) {
+        Gauge.builder("inventory.index.skus", slots, ConcurrentHashMap::size)
+                .description("SKUs held in the in-memory stock index")
+                .register(meterRegistry);
+    }
+
+    // Listeners are called on the writing thread, so they must only note the SKU and return
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Changes whenever any indexed quantity does
+    public String etag() {
+        return epoch + "-" + version.get();
+    }
+
+    // Quantity of a SKU, or null when the SKU is not indexed
+    public Integer get(String skuCode) {
+        Integer slot = slots.get(skuCode);
+        return slot == null ? null : quantities(slot).get(slot & CHUNK_MASK);
+    }
+
+    // Sets the quantity, interning the SKU first if needed
+    public void put(String skuCode, int quantity) {
+        int slot = slotOf(skuCode, quantity);
+        if (quantities(slot).getAndSet(slot & CHUNK_MASK, quantity) != quantity) {
+            changed(skuCode);
+        }
+    }
+
+    // Indexes a SKU read from Postgres unless a newer value is already indexed
+    public void putIfAbsent(String skuCode, int quantity) {
+        slotOf(skuCode, quantity);
+    }
+
+    // Takes up to quantity from the SKU without going below zero; returns what was taken
+    public int decrement(String skuCode, int quantity) {
+        Integer slot = slots.get(skuCode);
+        if (slot == null) {
+            return 0;
+        }
+        AtomicIntegerArray quantities = quantities(slot);
+        int index = slot & CHUNK_MASK;
+        while (true) {
+            int current = quantities.get(index);
+            int next = Math.max(current - quantity, 0);
+            if (quantities.compareAndSet(index, current, next)) {
+                if (next != current) {
+                    changed(skuCode);
+                }
+                return current - next;
+            }
+        }
+    }
+
+    // Moves the SKU by a signed amount, clamped at zero like decrement
+    public void add(String skuCode, int quantity) {
+        Integer slot = slots.get(skuCode);
+        if (slot == null || quantity == 0) {
+            return;
+        }
+        AtomicIntegerArray quantities = quantities(slot);
+        int index = slot & CHUNK_MASK;
+        while (true) {
+            int current = quantities.get(index);
+            int next = Math.max(current + quantity, 0);
+            if (quantities.compareAndSet(index, current, next)) {
+                if (next != current) {
+                    changed(skuCode);
+                }
+                return;
+            }
+        }
+    }
+
+    // Drops every SKU not in skuCodes, e.g. after the inventory table was replaced. Dropped slots are never reused,
+    // so this is only for rare wholesale replacements
+    public void retainAll(Set<String> skuCodes) {
+        for (String skuCode : slots.keySet()) {
+            if (!skuCodes.contains(skuCode) && slots.remove(skuCode) != null) {
+                changed(skuCode);
+            }
+        }
+    }
+
+    private void changed(String skuCode) {
+        version.incrementAndGet();
+        for (Listener listener : listeners) {
+            listener.stockChanged(skuCode);
+        }
+    }
+
+    private AtomicIntegerArray quantities(int slot) {
+        return chunks[slot >>> CHUNK_BITS];
+    }
+
+    private int slotOf(String skuCode, int initialQuantity) {
+        Integer slot = slots.get(skuCode);
+        return slot != null ? slot : intern(skuCode, initialQuantity);
+    }
+
+    private synchronized int intern(String skuCode, int initialQuantity) {
+        Integer existing = slots.get(skuCode);
+        if (existing != null) {
+            return existing;
+        }
+        int slot = size++;
+        if ((slot >>> CHUNK_BITS) == chunks.length) {
+            AtomicIntegerArray[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = new AtomicIntegerArray(CHUNK_SIZE);
+            chunks = grown;
+        }
+        quantities(slot).set(slot & CHUNK_MASK, initialQuantity);
+        // Published only once its quantity is in place
+        slots.put(skuCode, slot);
+        changed(skuCode);
+        return slot;
+    }
+
+    // Told which SKU changed, not its new level: readers take the current level so out-of-order calls cannot go back
+    public interface Listener {
+        void stockChanged(String skuCode);
+    }
+}
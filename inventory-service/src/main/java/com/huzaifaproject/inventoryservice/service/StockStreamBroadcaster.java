@@ -0,0 +1,237 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import com.huzaifaproject.inventoryservice.dto.StockChangeResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes stock changes of the in-memory index to SSE subscribers, each filtered to its own SKUs.
+ * Every subscriber has a bounded buffer of changed SKUs that coalesces repeated changes of one SKU and is sent
+ * by its own virtual thread, so a slow client never holds up the writer or other clients. A buffer that
+ * overflows is dropped and replaced by a single resync event telling the client to read the levels again.
+ */
+@Component
+@Slf4j
+public class StockStreamBroadcaster implements StockIndex.Listener {
+
+    private static final String STOCK_EVENT = "stock";
+    private static final String RESYNC_EVENT = "resync";
+
+    private final StockIndex stockIndex;
+    private final Map<String, Set<Subscriber>> subscribersBySkuCode = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("stock-stream-", 0).factory());
+    private final Counter resyncs;
+
+    @Value("${app.inventory.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.inventory.stream.max-pending:256}")
+    private int maxPending;
+
+    public StockStreamBroadcaster(StockIndex stockIndex, MeterRegistry meterRegistry) {
+        this.stockIndex = stockIndex;
+        this.resyncs = Counter.builder("inventory.stream.resyncs")
+                .description("Subscriber buffers that overflowed and were replaced by a resync event")
+                .register(meterRegistry);
+        Gauge.builder("inventory.stream.subscribers", subscribers, Set::size)
+                .description("Open stock change streams")
+                .register(meterRegistry);
+        stockIndex.addListener(this);
+    }
+
+    // Starts with the current level of every requested SKU the index knows, then sends changes
+    public SseEmitter subscribe(Collection<String> skuCodes) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(skuCodes));
+        subscribers.add(subscriber);
+        for (String skuCode : subscriber.skuCodes) {
+            subscribersBySkuCode.computeIfAbsent(skuCode, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+
+        // Registered first, so a change racing with the initial levels is at worst sent twice
+        subscriber.start();
+        return emitter;
+    }
+
+    @Override
+    public void stockChanged(String skuCode) {
+        Set<Subscriber> interested = subscribersBySkuCode.get(skuCode);
+        if (interested != null) {
+            interested.forEach(subscriber -> subscriber.offer(skuCode));
+        }
+    }
+
+    // Keeps idle streams open through the gateway and any proxy in front of it
+    @Scheduled(fixedDelayString = "${app.inventory.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        for (String skuCode : subscriber.skuCodes) {
+            subscribersBySkuCode.computeIfPresent(skuCode, (key, interested) -> {
+                interested.remove(subscriber);
+                return interested.isEmpty() ? null : interested;
+            });
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<String> skuCodes;
+        // Last level sent per SKU; only touched by the single running drain
+        private final Map<String, Integer> sentQuantities = new HashMap<>();
+
+        // Guarded by this
+        private Set<String> pending = new LinkedHashSet<>();
+        private boolean overflowed;
+        private boolean heartbeatDue;
+        // Starts out set: changes arriving during start() wait in the buffer
+        private boolean draining = true;
+
+        private Subscriber(SseEmitter emitter, Set<String> skuCodes) {
+            this.emitter = emitter;
+            this.skuCodes = skuCodes;
+        }
+
+        // Runs on the request thread; the emitter buffers these events until the response starts
+        private void start() {
+            try {
+                send(skuCodes, false, false);
+            } catch (IOException | IllegalStateException ex) {
+                fail(ex);
+                return;
+            }
+            drain();
+        }
+
+        private void offer(String skuCode) {
+            synchronized (this) {
+                if (overflowed) {
+                    // A resync is queued, and the client reads every level again after it
+                    return;
+                }
+                if (pending.size() >= maxPending && !pending.contains(skuCode)) {
+                    pending.clear();
+                    overflowed = true;
+                    resyncs.increment();
+                } else {
+                    pending.add(skuCode);
+                }
+                if (!startDrain()) {
+                    return;
+                }
+            }
+            senders.execute(this::drain);
+        }
+
+        private void heartbeat() {
+            synchronized (this) {
+                heartbeatDue = true;
+                if (!startDrain()) {
+                    return;
+                }
+            }
+            senders.execute(this::drain);
+        }
+
+        private boolean startDrain() {
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                Set<String> changed;
+                boolean resync;
+                boolean ping;
+                synchronized (this) {
+                    if (pending.isEmpty() && !overflowed && !heartbeatDue) {
+                        draining = false;
+                        return;
+                    }
+                    changed = pending;
+                    pending = new LinkedHashSet<>();
+                    resync = overflowed;
+                    overflowed = false;
+                    ping = heartbeatDue;
+                    heartbeatDue = false;
+                }
+                try {
+                    send(changed, resync, ping);
+                } catch (IOException | IllegalStateException ex) {
+                    fail(ex);
+                    return;
+                }
+            }
+        }
+
+        // Leaves the subscriber marked as draining, so nothing is scheduled for it any more
+        private void fail(Exception ex) {
+            log.debug("Dropping stock stream subscriber: {}", ex.getMessage());
+            emitter.completeWithError(ex);
+            remove(this);
+        }
+
+        private void send(Collection<String> changed, boolean resync, boolean ping) throws IOException {
+            if (resync) {
+                sentQuantities.clear();
+                emitter.send(SseEmitter.event().name(RESYNC_EVENT).data("resync"));
+                return;
+            }
+            boolean sent = false;
+            for (String skuCode : changed) {
+                // The level is read now, so a burst of changes to one SKU goes out as one event
+                Integer quantity = stockIndex.get(skuCode);
+                Integer previous = quantity == null ? null : sentQuantities.put(skuCode, quantity);
+                if (quantity == null || quantity.equals(previous)) {
+                    continue;
+                }
+                StockChangeResponse change = StockChangeResponse.builder()
+                        .skuCode(skuCode)
+                        .quantity(quantity)
+                        .delta(previous == null ? null : quantity - previous)
+                        .build();
+                emitter.send(SseEmitter.event().name(STOCK_EVENT).data(change, MediaType.APPLICATION_JSON));
+                sent = true;
+            }
+            if (ping && !sent) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.inventoryservice.event.OrderPlacedEvent;
+import com.huzaifaproject.inventoryservice.exception.InventoryServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Write-behind for order-placed stock deltas. A batch is fsynced to the change log and applied to the
+ * {@link StockIndex} before the consumer acknowledges it; a scheduled flush then writes all pending deltas,
+ * processed-order markers and the log checkpoint to Postgres in one transaction and empties the log.
+ * On start the index is loaded from Postgres and log entries past the checkpoint are replayed.
+ */
+// Hibernate creates the checkpoint and processed-order tables before the replay reads them
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class StockWriteBehind {
+
+    // Deltas are relative, so flushes from several instances commute. Shortfalls are reported before this floors the
+    // row at zero
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE inventory SET quantity = GREATEST(quantity - ?, 0) WHERE sku_code = ?";
+    private static final String MARK_PROCESSED_SQL =
+            "INSERT INTO t_processed_orders (order_number, processed_at) VALUES (?, ?) ON CONFLICT DO NOTHING";
+    private static final String FIND_PROCESSED_SQL =
+            "SELECT order_number FROM t_processed_orders WHERE order_number IN (:orderNumbers)";
+    private static final String FIND_CHECKPOINT_SQL =
+            "SELECT flushed_sequence FROM t_inventory_change_log_checkpoints WHERE log_id = ?";
+    private static final String SAVE_CHECKPOINT_SQL =
+            "INSERT INTO t_inventory_change_log_checkpoints (log_id, flushed_sequence, flushed_at) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (log_id) DO UPDATE SET flushed_sequence = EXCLUDED.flushed_sequence, "
+                    + "flushed_at = EXCLUDED.flushed_at";
+    private static final String LOAD_STOCK_SQL = "SELECT sku_code, quantity FROM inventory";
+    // Same lock order as the reservation path, so a flush and a reservation cannot deadlock
+    private static final String LOCK_STOCK_SQL =
+            "SELECT sku_code, quantity FROM inventory WHERE sku_code = ANY(?) ORDER BY sku_code FOR UPDATE";
+
+    private final StockIndex stockIndex;
+    private final StockChangeLog changeLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+    private final Counter oversoldUnits;
+
+    // Everything below is written under this. Reservations read pendingDeltas without the lock, which is why it is
+    // a concurrent map
+    private final ConcurrentSkipListMap<String, Integer> pendingDeltas = new ConcurrentSkipListMap<>();
+    private final Set<String> pendingOrderNumbers = new HashSet<>();
+    private long lastSequence;
+    // Committed flushes, so a refresh can tell whether one landed while it was scanning
+    private long flushes;
+
+    public StockWriteBehind(StockIndex stockIndex,
+                            ObjectMapper objectMapper,
+                            JdbcTemplate jdbcTemplate,
+                            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.inventory.index.change-log:data/stock-changes.log}") Path changeLogPath) {
+        this.stockIndex = stockIndex;
+        this.changeLog = new StockChangeLog(changeLogPath, objectMapper);
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.flushTimer = Timer.builder("inventory.index.flush")
+                .description("Time to write pending stock deltas to Postgres")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("inventory.index.flush.failures")
+                .description("Flushes that failed and will be retried")
+                .register(meterRegistry);
+        this.oversoldUnits = Counter.builder("inventory.index.oversold")
+                .description("Units of flushed stock deltas that Postgres no longer had")
+                .register(meterRegistry);
+        Gauge.builder("inventory.index.pending", this, StockWriteBehind::pendingSkuCount)
+                .description("SKUs with stock deltas not yet written to Postgres")
+                .register(meterRegistry);
+    }
+
+    // Runs before the Kafka listeners start, so no batch is applied ahead of the replay
+    @PostConstruct
+    synchronized void recover() throws IOException {
+        refresh();
+        List<StockChangeLog.Entry> entries = changeLog.open();
+        Long checkpoint = jdbcTemplate.query(FIND_CHECKPOINT_SQL,
+                rs -> rs.next() ? rs.getLong(1) : 0L, changeLog.logId());
+        lastSequence = checkpoint;
+
+        List<StockChangeLog.Entry> unflushed = new ArrayList<>();
+        for (StockChangeLog.Entry entry : entries) {
+            if (entry.sequence() > checkpoint) {
+                unflushed.add(entry);
+                track(entry);
+                entry.deltas().forEach(stockIndex::decrement);
+            }
+        }
+        // Entries at or below the checkpoint were flushed just before the previous run stopped
+        changeLog.rewrite(unflushed);
+        if (!unflushed.isEmpty()) {
+            log.info("Replayed {} stock change log entries past checkpoint {}", unflushed.size(), checkpoint);
+            flush();
+        }
+    }
+
+    /**
+     * Takes a batch of unreserved placed orders; returns once it is durable in the change log and visible in the
+     * index. Orders already pending or already flushed are skipped. Returns the SKUs whose stock changed.
+     */
+    public Collection<String> apply(List<OrderPlacedEvent> orders) {
+        Map<String, OrderPlacedEvent> byOrderNumber = new LinkedHashMap<>();
+        orders.forEach(order -> byOrderNumber.putIfAbsent(order.orderNumber(), order));
+        if (byOrderNumber.isEmpty()) {
+            return List.of();
+        }
+        // Redeliveries of orders flushed earlier; the pending ones are filtered under the lock below
+        byOrderNumber.keySet().removeAll(namedParameterJdbcTemplate.queryForList(FIND_PROCESSED_SQL,
+                Map.of("orderNumbers", byOrderNumber.keySet()), String.class));
+
+        synchronized (this) {
+            byOrderNumber.keySet().removeAll(pendingOrderNumbers);
+            if (byOrderNumber.isEmpty()) {
+                return List.of();
+            }
+            Map<String, Integer> deltas = new TreeMap<>();
+            for (OrderPlacedEvent order : byOrderNumber.values()) {
+                if (order.lineItems() != null) {
+                    order.lineItems().forEach(item -> deltas.merge(item.skuCode(), item.quantity(), Integer::sum));
+                }
+            }
+
+            StockChangeLog.Entry entry =
+                    new StockChangeLog.Entry(lastSequence + 1, List.copyOf(byOrderNumber.keySet()), deltas);
+            try {
+                changeLog.append(entry);
+            } catch (IOException ex) {
+                // Nothing was acknowledged, so the batch is redelivered
+                throw new InventoryServiceException("Unable to write the stock change log: " + ex.getMessage());
+            }
+            lastSequence = entry.sequence();
+            track(entry);
+            deltas.forEach(stockIndex::decrement);
+            return deltas.keySet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.index.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (pendingOrderNumbers.isEmpty()) {
+            return;
+        }
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> writePending()));
+        } catch (Exception ex) {
+            // The log still holds every pending entry; the next tick retries
+            flushFailures.increment();
+            log.warn("Stock write-behind flush failed, will retry: {}", ex.getMessage());
+            return;
+        }
+        // Committed: from here on the deltas are in Postgres and must never be written again
+        log.debug("Flushed {} orders as {} SKU deltas up to sequence {}",
+                pendingOrderNumbers.size(), pendingDeltas.size(), lastSequence);
+        pendingDeltas.clear();
+        pendingOrderNumbers.clear();
+        flushes++;
+        try {
+            changeLog.rewrite(List.of());
+        } catch (IOException ex) {
+            // Harmless: the entries left in the log are at or below the checkpoint, so a replay skips them
+            log.warn("Unable to truncate the stock change log after a flush: {}", ex.getMessage());
+        }
+    }
+
+    // Brings in changes made by other instances and by the reservation endpoints, keeping local pending deltas on top
+    @Scheduled(fixedDelayString = "${app.inventory.index.refresh-interval-ms:5000}",
+            initialDelayString = "${app.inventory.index.refresh-interval-ms:5000}")
+    // The scan runs without the lock so batches and flushes are not held up by it. A flush committing during the
+    // scan may or may not be in what was read, so that scan is dropped and the next tick reads again
+    public void refresh() {
+        long flushesBefore;
+        synchronized (this) {
+            flushesBefore = flushes;
+        }
+        Map<String, Integer> stored = loadStock();
+        synchronized (this) {
+            if (flushes != flushesBefore) {
+                log.debug("Skipping stock index refresh that overlapped a flush");
+                return;
+            }
+            stored.forEach((skuCode, quantity) ->
+                    stockIndex.put(skuCode, Math.max(quantity - pendingDeltas.getOrDefault(skuCode, 0), 0)));
+        }
+    }
+
+    /**
+     * Replaces the stored stock wholesale. The replacement rewrites the inventory table while batches and flushes are
+     * held off; then pending deltas and the change log, which describe the old rows, are dropped and the index is
+     * reloaded, without the SKUs that are gone.
+     */
+    public synchronized void replaceStock(Replacement replacement) throws Exception {
+        replacement.run();
+        log.info("Stock replaced, dropping {} pending orders and the stock change log", pendingOrderNumbers.size());
+        pendingDeltas.clear();
+        pendingOrderNumbers.clear();
+        changeLog.rewrite(List.of());
+        // Makes a refresh that scanned the old rows drop what it read
+        flushes++;
+        Map<String, Integer> stored = loadStock();
+        stored.forEach(stockIndex::put);
+        stockIndex.retainAll(stored.keySet());
+    }
+
+    /**
+     * Quantity of the SKU taken by orders in the index but not yet written to Postgres. Reservations check Postgres
+     * stock minus this, so stock an unreserved order already took cannot be reserved again. Only this instance's
+     * deltas are known; those of other instances reach Postgres within one flush interval.
+     */
+    public int pendingDelta(String skuCode) {
+        return pendingDeltas.getOrDefault(skuCode, 0);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        flush();
+        changeLog.close();
+    }
+
+    private void writePending() {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(MARK_PROCESSED_SQL,
+                pendingOrderNumbers.stream().map(orderNumber -> new Object[]{orderNumber, now}).toList());
+        reportOversold();
+        // Sorted by skuCode so concurrent flushes lock inventory rows in the same order
+        List<Object[]> arguments = new ArrayList<>(pendingDeltas.size());
+        pendingDeltas.forEach((skuCode, quantity) -> arguments.add(new Object[]{quantity, skuCode}));
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, arguments);
+        jdbcTemplate.update(SAVE_CHECKPOINT_SQL, changeLog.logId(), lastSequence, now);
+    }
+
+    // Locks the rows the deltas go to and reports the units Postgres cannot cover. Those orders were placed without a
+    // reservation against stock that is gone, so they are oversold; the row is still floored at zero
+    private void reportOversold() {
+        Map<String, Integer> shortfalls = new TreeMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_STOCK_SQL);
+            statement.setArray(1, connection.createArrayOf("text", pendingDeltas.keySet().toArray()));
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            int shortfall = pendingDeltas.getOrDefault(rs.getString(1), 0) - rs.getInt(2);
+            if (shortfall > 0) {
+                shortfalls.put(rs.getString(1), shortfall);
+            }
+        });
+        if (!shortfalls.isEmpty()) {
+            oversoldUnits.increment(shortfalls.values().stream().mapToInt(Integer::intValue).sum());
+            log.error("Orders placed without a reservation oversold {} (units short per SKU)", shortfalls);
+        }
+    }
+
+    private Map<String, Integer> loadStock() {
+        Map<String, Integer> stored = new HashMap<>();
+        jdbcTemplate.query(LOAD_STOCK_SQL, rs -> {
+            stored.put(rs.getString(1), rs.getInt(2));
+        });
+        return stored;
+    }
+
+    private void track(StockChangeLog.Entry entry) {
+        pendingOrderNumbers.addAll(entry.orderNumbers());
+        entry.deltas().forEach((skuCode, quantity) -> pendingDeltas.merge(skuCode, quantity, Integer::sum));
+        lastSequence = Math.max(lastSequence, entry.sequence());
+    }
+
+    private synchronized int pendingSkuCount() {
+        return pendingDeltas.size();
+    }
+
+    // Rewrites the inventory table, committing before it returns
+    public interface Replacement {
+        void run() throws Exception;
+    }
+}
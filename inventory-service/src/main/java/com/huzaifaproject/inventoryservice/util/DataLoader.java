@@ -1,26 +1,37 @@
 package com.huzaifaproject.inventoryservice.util;
 
+import com.huzaifaproject.inventoryservice.event.StockChangedEventProducer;
 import com.huzaifaproject.inventoryservice.model.Inventory;
 import com.huzaifaproject.inventoryservice.repository.InventoryRepository;
+import com.huzaifaproject.inventoryservice.service.StockIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+// Seeds a few demo rows unless the synthetic data generator replaces them
 @Component
+@ConditionalOnProperty(name = "app.datagen.enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 public class DataLoader implements CommandLineRunner {
     private final InventoryRepository inventoryRepository;
+    private final StockChangedEventProducer stockChangedEventProducer;
+    private final StockIndex stockIndex;
     @Override
     public void run(String... args) throws Exception {
-        Inventory inventory = new Inventory();
-        inventory.setSkuCode("iphone_13");
-        inventory.setQuantity(100);
-
-        Inventory inventory1 = new Inventory();
-        inventory1.setSkuCode("iphone_13_red");
-        inventory1.setQuantity(0);
+        seed("iphone_13", 100);
+        seed("iphone_13_red", 0);
+    }
 
+    // sku_code is unique, so each start resets the existing row instead of adding another
+    private void seed(String skuCode, int quantity) {
+        Inventory inventory = inventoryRepository.findBySkuCode(skuCode).orElseGet(Inventory::new);
+        inventory.setSkuCode(skuCode);
+        inventory.setQuantity(quantity);
         inventoryRepository.save(inventory);
-        inventoryRepository.save(inventory1);
+
+        // Seeding resets stock levels, so refresh the index and any order-service near-caches
+        stockIndex.put(skuCode, quantity);
+        stockChangedEventProducer.publishStockChanged(skuCode, quantity);
     }
 }
@@ -0,0 +1,91 @@
+package com.huzaifaproject.inventoryservice.util;
+
+import com.huzaifaproject.inventoryservice.service.StockWriteBehind;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+
+/**
+ * Replaces all inventory rows with one generated row per SKU when app.datagen.enabled is set, streamed in with
+ * COPY. SKU codes follow the products generated by product-service from the same seed. Reservations refer to the
+ * old rows, so they are removed too.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datagen.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    // COPY data is handed to the driver in chunks of about this many bytes
+    private static final int COPY_CHUNK_BYTES = 1 << 20;
+
+    private final DataSource dataSource;
+    private final StockWriteBehind stockWriteBehind;
+
+    @Value("${app.datagen.seed:42}")
+    private long seed;
+
+    @Value("${app.datagen.skus:1000000}")
+    private int skus;
+
+    // Share of SKUs generated with no stock
+    @Value("${app.datagen.out-of-stock-ratio:0.05}")
+    private double outOfStockRatio;
+
+    @Override
+    public void run(String... args) throws Exception {
+        long started = System.nanoTime();
+        // Placed-order batches and flushes wait until the new rows are committed and indexed
+        stockWriteBehind.replaceStock(this::generate);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Generated {} inventory rows in {} s ({} rows/s)", skus,
+                String.format("%.1f", seconds), String.format("%.0f", skus / seconds));
+    }
+
+    private void generate() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("TRUNCATE inventory, t_inventory_reservation_lines, t_inventory_reservations "
+                        + "RESTART IDENTITY");
+            }
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY inventory (sku_code, quantity) FROM STDIN");
+            // Generated values never contain tabs, newlines or backslashes, so rows need no COPY escaping
+            StringBuilder rows = new StringBuilder(COPY_CHUNK_BYTES + 1024);
+            for (int sku = 1; sku <= skus; sku++) {
+                int quantity = quantity(sku);
+                // product_0000001 style, zero-padded without a format parse per row
+                rows.append("product_");
+                for (int digits = Integer.toString(sku).length(); digits < 7; digits++) {
+                    rows.append('0');
+                }
+                rows.append(sku).append('\t').append(quantity).append('\n');
+                if (rows.length() >= COPY_CHUNK_BYTES || sku == skus) {
+                    byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                    rows.setLength(0);
+                }
+            }
+            copyIn.endCopy();
+            connection.commit();
+        }
+    }
+
+    // Must stay in step with product-service's generator so both services start with the same stock per SKU
+    private int quantity(int sku) {
+        SplittableRandom random = new SplittableRandom(seed * 17 + sku);
+        return random.nextDouble() < outOfStockRatio ? 0 : random.nextInt(1, 1000);
+    }
+}
@@ -0,0 +1,15 @@
+-- Runs before Hibernate's ddl-auto=update on every start and is safe to re-run.
+-- Earlier versions seeded a new inventory row per SKU on every start; keep the oldest row of each SKU
+-- so sku_code can carry a unique index.
+
+DO $$
+BEGIN
+    IF to_regclass('inventory') IS NOT NULL THEN
+        DELETE FROM inventory duplicate
+        USING inventory original
+        WHERE duplicate.sku_code = original.sku_code
+          AND duplicate.id > original.id;
+
+        CREATE UNIQUE INDEX IF NOT EXISTS uk_inventory_sku_code ON inventory (sku_code);
+    END IF;
+END $$;
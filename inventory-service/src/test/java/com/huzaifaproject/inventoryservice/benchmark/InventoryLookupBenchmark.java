@@ -0,0 +1,99 @@
+package com.huzaifaproject.inventoryservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.inventoryservice.controller.InventoryController;
+import com.huzaifaproject.inventoryservice.dto.InventoryLookupRequest;
+import com.huzaifaproject.inventoryservice.service.InventoryService;
+import com.huzaifaproject.inventoryservice.service.StockIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of POST /api/inventory/lookup for 10, 1k and 50k SKUs, from the request body to the last byte of the
+ * streamed JSON array, without the HTTP layer. Every SKU is in the stock index, which is the steady state once
+ * the write-behind has loaded the catalog; SKUs missing from it go to Postgres and are not covered here. Sample
+ * mode reports p50/p99 per lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryLookupBenchmark {
+
+    private static final int CATALOG_SIZE = 1_000_000;
+
+    @Param({"10", "1000", "50000"})
+    private int skuCount;
+
+    private InventoryController controller;
+    private InventoryLookupRequest request;
+
+    @Setup
+    public void setUp() {
+        StockIndex stockIndex = new StockIndex(new SimpleMeterRegistry());
+        for (int sku = 0; sku < CATALOG_SIZE; sku++) {
+            stockIndex.put(skuCode(sku), sku % 1000);
+        }
+        // Only the index is reached while every SKU is indexed
+        InventoryService inventoryService = new InventoryService(null, null, stockIndex, null, null);
+        controller = new InventoryController(inventoryService, stockIndex, null, new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "maxLookupSkuCodes", 100_000);
+
+        // A random basket spread over the whole catalog, as a sync job or a large cart would send
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> skuCodes = new ArrayList<>(skuCount);
+        for (int i = 0; i < skuCount; i++) {
+            skuCodes.add(skuCode(random.nextInt(CATALOG_SIZE)));
+        }
+        request = new InventoryLookupRequest(skuCodes);
+    }
+
+    @Benchmark
+    public long lookup() throws IOException {
+        StreamingResponseBody body = controller.lookup(request).getBody();
+        CountingOutputStream out = new CountingOutputStream();
+        body.writeTo(out);
+        return out.count;
+    }
+
+    private static String skuCode(int sku) {
+        return "sku_" + sku;
+    }
+
+    // Stands in for the servlet stream; the byte count is returned so the JSON cannot be optimised away
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
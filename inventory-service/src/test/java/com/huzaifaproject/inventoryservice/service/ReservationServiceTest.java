@@ -0,0 +1,310 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import com.huzaifaproject.inventoryservice.dto.ReservationItem;
+import com.huzaifaproject.inventoryservice.dto.ReservationRequest;
+import com.huzaifaproject.inventoryservice.dto.ReservationResponse;
+import com.huzaifaproject.inventoryservice.event.StockChangedEventProducer;
+import com.huzaifaproject.inventoryservice.exception.ReservationConflictException;
+import com.huzaifaproject.inventoryservice.model.InventoryReservation;
+import com.huzaifaproject.inventoryservice.model.ReservationLine;
+import com.huzaifaproject.inventoryservice.model.ReservationStatus;
+import com.huzaifaproject.inventoryservice.repository.InventoryReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationServiceTest {
+
+    private static final String TAKE_STOCK = "UPDATE inventory SET quantity = quantity -";
+    private static final String RETURN_STOCK = "UPDATE inventory SET quantity = quantity +";
+    private static final String COMMIT = "UPDATE t_inventory_reservations";
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final InventoryReservationRepository reservationRepository = mock(InventoryReservationRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StockWriteBehind stockWriteBehind = mock(StockWriteBehind.class);
+    private final ReservationService reservationService = new ReservationService(reservationRepository, jdbcTemplate,
+            mock(StockChangedEventProducer.class), new StockIndex(new SimpleMeterRegistry()), stockWriteBehind,
+            new TransactionTemplate(transactionManager));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reservationService, "defaultTtlSeconds", 900L);
+        ReflectionTestUtils.setField(reservationService, "maxTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(reservationService, "maxGroupSize", 256);
+        // Stock changes are published after commit, which needs synchronization to be active
+        TransactionSynchronizationManager.initSynchronization();
+        when(reservationRepository.findByReservationId(anyString())).thenReturn(Optional.empty());
+        when(reservationRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reservationRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+        reservationService.close();
+    }
+
+    @Test
+    void reservingTakesTheStockOfEveryLine() {
+        stockOnHand("iphone_13", 5, "pixel_8", 1);
+
+        ReservationResponse response = reservationService.reserve(request("order-1", "iphone_13", 2, "pixel_8", 1));
+
+        assertThat(response.getStatus()).isEqualTo(ReservationStatus.RESERVED);
+        assertThat(response.getExpiresAt()).isAfter(Instant.now());
+        assertThat(response.getItems()).extracting(ReservationItem::getSkuCode).containsExactly("iphone_13", "pixel_8");
+        verify(jdbcTemplate).batchUpdate(startsWith(TAKE_STOCK), anyList());
+    }
+
+    @Test
+    void reservingFailsWhenAnyLineIsShort() {
+        stockOnHand("iphone_13", 5);
+
+        assertThatThrownBy(() -> reservationService.reserve(request("order-1", "iphone_13", 2, "pixel_8", 1)))
+                .isInstanceOf(ReservationConflictException.class)
+                .hasMessageContaining("pixel_8");
+        verify(jdbcTemplate, never()).batchUpdate(startsWith(TAKE_STOCK), anyList());
+    }
+
+    @Test
+    void stockTakenByUnflushedOrdersCannotBeReserved() {
+        stockOnHand("iphone_13", 5);
+        when(stockWriteBehind.pendingDelta("iphone_13")).thenReturn(4);
+
+        assertThatThrownBy(() -> reservationService.reserve(request("order-1", "iphone_13", 2)))
+                .isInstanceOf(ReservationConflictException.class);
+    }
+
+    @Test
+    void aRetriedReservationGetsTheExistingOneWithoutTakingStockAgain() {
+        when(reservationRepository.findByReservationIdIn(anyCollection()))
+                .thenReturn(List.of(reservation("order-1", ReservationStatus.RESERVED)));
+
+        ReservationResponse response = reservationService.reserve(request("order-1", "iphone_13", 2));
+
+        assertThat(response.getStatus()).isEqualTo(ReservationStatus.RESERVED);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith(TAKE_STOCK), anyList());
+    }
+
+    @Test
+    void aConcurrentDuplicateGetsTheReservationThatWon() {
+        stockOnHand("iphone_13", 5);
+        when(reservationRepository.findByReservationId("order-1"))
+                .thenReturn(Optional.of(reservation("order-1", ReservationStatus.RESERVED)));
+        when(reservationRepository.saveAllAndFlush(anyList()))
+                .thenThrow(new DataIntegrityViolationException("uk_inventory_reservations_reservation_id"));
+
+        ReservationResponse response = reservationService.reserve(request("order-1", "iphone_13", 2));
+
+        assertThat(response.getReservationId()).isEqualTo("order-1");
+        assertThat(response.getStatus()).isEqualTo(ReservationStatus.RESERVED);
+    }
+
+    @Test
+    void concurrentReservationsAreCommittedTogetherAgainstTheLockedStock() throws Exception {
+        stockOnHand("iphone_13", 5);
+        CountDownLatch firstGroupStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstGroup = new CountDownLatch(1);
+        AtomicInteger transactions = new AtomicInteger();
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            if (transactions.incrementAndGet() == 1) {
+                firstGroupStarted.countDown();
+                releaseFirstGroup.await();
+            }
+            return null;
+        });
+
+        try (ExecutorService callers = Executors.newFixedThreadPool(9)) {
+            Future<ReservationResponse> first = callers.submit(() -> reservationService.reserve(request("order-0", "iphone_13", 1)));
+            firstGroupStarted.await();
+            List<Future<ReservationResponse>> queued = new ArrayList<>();
+            for (int i = 1; i <= 8; i++) {
+                String reservationId = "order-" + i;
+                queued.add(callers.submit(() -> reservationService.reserve(request(reservationId, "iphone_13", 1))));
+            }
+            while (reservationService.queuedReservations() < 8) {
+                Thread.onSpinWait();
+            }
+            releaseFirstGroup.countDown();
+
+            assertThat(first.get().getStatus()).isEqualTo(ReservationStatus.RESERVED);
+            int reserved = 0;
+            int refused = 0;
+            for (Future<ReservationResponse> reservation : queued) {
+                try {
+                    reservation.get();
+                    reserved++;
+                } catch (ExecutionException ex) {
+                    assertThat(ex.getCause()).isInstanceOf(ReservationConflictException.class);
+                    refused++;
+                }
+            }
+            // The eight queued behind the first share one transaction and the 5 units the locked row reports
+            assertThat(reserved).isEqualTo(5);
+            assertThat(refused).isEqualTo(3);
+        }
+        assertThat(transactions).hasValue(2);
+    }
+
+    @Test
+    void commitMakesAReservationFinalAndIsIdempotent() {
+        InventoryReservation reservation = reservation("order-1", ReservationStatus.RESERVED);
+        when(reservationRepository.findForUpdateByReservationId("order-1")).thenReturn(Optional.of(reservation));
+
+        assertThat(reservationService.commit("order-1").getStatus()).isEqualTo(ReservationStatus.COMMITTED);
+        assertThat(reservationService.commit("order-1").getStatus()).isEqualTo(ReservationStatus.COMMITTED);
+    }
+
+    @Test
+    void aReleasedReservationCannotBeCommitted() {
+        when(reservationRepository.findForUpdateByReservationId("order-1"))
+                .thenReturn(Optional.of(reservation("order-1", ReservationStatus.RELEASED)));
+
+        assertThatThrownBy(() -> reservationService.commit("order-1"))
+                .isInstanceOf(ReservationConflictException.class);
+    }
+
+    @Test
+    void releaseReturnsTheStockOnce() {
+        InventoryReservation reservation = reservation("order-1", ReservationStatus.RESERVED);
+        when(reservationRepository.findForUpdateByReservationId("order-1")).thenReturn(Optional.of(reservation));
+
+        assertThat(reservationService.release("order-1").getStatus()).isEqualTo(ReservationStatus.RELEASED);
+        assertThat(reservationService.release("order-1").getStatus()).isEqualTo(ReservationStatus.RELEASED);
+
+        verify(jdbcTemplate).batchUpdate(startsWith(RETURN_STOCK), anyList());
+    }
+
+    @Test
+    void aCommittedReservationCannotBeReleased() {
+        when(reservationRepository.findForUpdateByReservationId("order-1"))
+                .thenReturn(Optional.of(reservation("order-1", ReservationStatus.COMMITTED)));
+
+        assertThatThrownBy(() -> reservationService.release("order-1"))
+                .isInstanceOf(ReservationConflictException.class);
+    }
+
+    @Test
+    void aReleaseAheadOfItsReservationRefusesTheReservation() {
+        InventoryReservation[] tombstone = new InventoryReservation[1];
+        when(reservationRepository.findForUpdateByReservationId("order-1")).thenReturn(Optional.empty());
+        when(reservationRepository.saveAndFlush(any())).thenAnswer(invocation -> tombstone[0] = invocation.getArgument(0));
+
+        assertThat(reservationService.releaseOrTombstone("order-1").getStatus()).isEqualTo(ReservationStatus.RELEASED);
+
+        when(reservationRepository.findByReservationIdIn(anyCollection())).thenReturn(List.of(tombstone[0]));
+        ReservationResponse response = reservationService.reserve(request("order-1", "iphone_13", 2));
+
+        assertThat(response.getStatus()).isEqualTo(ReservationStatus.RELEASED);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith(TAKE_STOCK), anyList());
+        verify(jdbcTemplate, never()).batchUpdate(startsWith(RETURN_STOCK), anyList());
+    }
+
+    @Test
+    void anExpiredReservationIsCommittedLateWhenItsStockIsStillThere() {
+        InventoryReservation reservation = reservation("order-1", ReservationStatus.EXPIRED);
+        when(jdbcTemplate.batchUpdate(startsWith(COMMIT), anyList())).thenReturn(new int[]{0});
+        when(reservationRepository.findForUpdateByReservationId("order-1")).thenReturn(Optional.of(reservation));
+        when(jdbcTemplate.batchUpdate(startsWith(TAKE_STOCK), anyList())).thenReturn(new int[]{1});
+        stockOnHand("iphone_13", 5);
+
+        reservationService.commitAll(List.of("order-1"));
+
+        assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.COMMITTED);
+        verify(jdbcTemplate).batchUpdate(startsWith(TAKE_STOCK), anyList());
+    }
+
+    @Test
+    void anExpiredReservationWhoseStockWasSoldStaysExpired() {
+        InventoryReservation reservation = reservation("order-1", ReservationStatus.EXPIRED);
+        when(jdbcTemplate.batchUpdate(startsWith(COMMIT), anyList())).thenReturn(new int[]{0});
+        when(reservationRepository.findForUpdateByReservationId("order-1")).thenReturn(Optional.of(reservation));
+        stockOnHand("iphone_13", 1);
+
+        reservationService.commitAll(List.of("order-1"));
+
+        assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.EXPIRED);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith(TAKE_STOCK), anyList());
+    }
+
+    @Test
+    void stockTakenByUnflushedOrdersCannotBeCommittedLate() {
+        InventoryReservation reservation = reservation("order-1", ReservationStatus.EXPIRED);
+        when(jdbcTemplate.batchUpdate(startsWith(COMMIT), anyList())).thenReturn(new int[]{0});
+        when(reservationRepository.findForUpdateByReservationId("order-1")).thenReturn(Optional.of(reservation));
+        when(stockWriteBehind.pendingDelta("iphone_13")).thenReturn(4);
+        stockOnHand("iphone_13", 5);
+
+        reservationService.commitAll(List.of("order-1"));
+
+        assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.EXPIRED);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith(TAKE_STOCK), anyList());
+    }
+
+    // Rows the lock query returns, as alternating skuCode and quantity
+    private void stockOnHand(Object... skuCodesAndQuantities) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < skuCodesAndQuantities.length; i += 2) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getString(1)).thenReturn((String) skuCodesAndQuantities[i]);
+                when(row.getInt(2)).thenReturn((Integer) skuCodesAndQuantities[i + 1]);
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static InventoryReservation reservation(String reservationId, ReservationStatus status) {
+        InventoryReservation reservation = new InventoryReservation();
+        reservation.setReservationId(reservationId);
+        reservation.setStatus(status);
+        reservation.setCreatedAt(Instant.now());
+        reservation.setExpiresAt(Instant.now().plusSeconds(900));
+        reservation.getLines().add(new ReservationLine("iphone_13", 2));
+        return reservation;
+    }
+
+    private static ReservationRequest request(String reservationId, Object... skuCodesAndQuantities) {
+        List<ReservationItem> items = new ArrayList<>();
+        for (int i = 0; i < skuCodesAndQuantities.length; i += 2) {
+            items.add(new ReservationItem((String) skuCodesAndQuantities[i], (Integer) skuCodesAndQuantities[i + 1]));
+        }
+        return ReservationRequest.builder().reservationId(reservationId).items(items).build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StockChangeLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysAppendedEntriesUnderTheSameLogId() throws IOException {
+        Path path = directory.resolve("stock-changes.log");
+        StockChangeLog changeLog = new StockChangeLog(path, objectMapper);
+        assertThat(changeLog.open()).isEmpty();
+        changeLog.append(entry(1, "order-1", "iphone_13", 2));
+        changeLog.append(entry(2, "order-2", "pixel_8", 1));
+        changeLog.close();
+
+        StockChangeLog reopened = new StockChangeLog(path, objectMapper);
+        List<StockChangeLog.Entry> entries = reopened.open();
+
+        assertThat(reopened.logId()).isEqualTo(changeLog.logId());
+        assertThat(entries).containsExactly(entry(1, "order-1", "iphone_13", 2), entry(2, "order-2", "pixel_8", 1));
+    }
+
+    @Test
+    void dropsATornLastLine() throws IOException {
+        Path path = directory.resolve("stock-changes.log");
+        StockChangeLog changeLog = new StockChangeLog(path, objectMapper);
+        changeLog.open();
+        changeLog.append(entry(1, "order-1", "iphone_13", 2));
+        changeLog.close();
+        Files.writeString(path, "{\"sequence\":2,\"orderNum", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        StockChangeLog reopened = new StockChangeLog(path, objectMapper);
+
+        assertThat(reopened.open()).containsExactly(entry(1, "order-1", "iphone_13", 2));
+        // The torn line is gone from the file, so the next append starts on a clean line
+        reopened.append(entry(2, "order-2", "pixel_8", 1));
+        reopened.close();
+        assertThat(new StockChangeLog(path, objectMapper).open())
+                .containsExactly(entry(1, "order-1", "iphone_13", 2), entry(2, "order-2", "pixel_8", 1));
+    }
+
+    @Test
+    void rewriteReplacesTheEntries() throws IOException {
+        Path path = directory.resolve("stock-changes.log");
+        StockChangeLog changeLog = new StockChangeLog(path, objectMapper);
+        changeLog.open();
+        changeLog.append(entry(1, "order-1", "iphone_13", 2));
+        changeLog.rewrite(List.of());
+        changeLog.append(entry(2, "order-2", "pixel_8", 1));
+        changeLog.close();
+
+        assertThat(new StockChangeLog(path, objectMapper).open()).containsExactly(entry(2, "order-2", "pixel_8", 1));
+    }
+
+    @Test
+    void aFailedRewriteLeavesTheLogOpenForAppends() throws IOException {
+        Path path = directory.resolve("stock-changes.log");
+        StockChangeLog changeLog = new StockChangeLog(path, objectMapper);
+        changeLog.open();
+        changeLog.append(entry(1, "order-1", "iphone_13", 2));
+        Map<String, Integer> unwritable = new HashMap<>();
+        unwritable.put(null, 1);
+
+        assertThatThrownBy(() -> changeLog.rewrite(List.of(new StockChangeLog.Entry(2, List.of(), unwritable))))
+                .isInstanceOf(IOException.class);
+        changeLog.append(entry(2, "order-2", "pixel_8", 1));
+        changeLog.close();
+
+        assertThat(new StockChangeLog(path, objectMapper).open())
+                .containsExactly(entry(1, "order-1", "iphone_13", 2), entry(2, "order-2", "pixel_8", 1));
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(path);
+        }
+    }
+
+    private static StockChangeLog.Entry entry(long sequence, String orderNumber, String skuCode, int quantity) {
+        return new StockChangeLog.Entry(sequence, List.of(orderNumber), Map.of(skuCode, quantity));
+    }
+}
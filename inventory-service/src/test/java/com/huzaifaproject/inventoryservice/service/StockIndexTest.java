@@ -0,0 +1,121 @@
+package com.huzaifaproject.inventoryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockIndexTest {
+
+    private final StockIndex stockIndex = new StockIndex(new SimpleMeterRegistry());
+
+    @Test
+    void unknownSkusAreNotIndexed() {
+        assertThat(stockIndex.get("iphone_13")).isNull();
+        assertThat(stockIndex.decrement("iphone_13", 1)).isZero();
+    }
+
+    @Test
+    void putIfAbsentKeepsANewerQuantity() {
+        stockIndex.put("iphone_13", 5);
+        stockIndex.putIfAbsent("iphone_13", 100);
+        stockIndex.putIfAbsent("pixel_8", 7);
+
+        assertThat(stockIndex.get("iphone_13")).isEqualTo(5);
+        assertThat(stockIndex.get("pixel_8")).isEqualTo(7);
+    }
+
+    @Test
+    void decrementNeverGoesBelowZeroAndReturnsWhatItTook() {
+        stockIndex.put("iphone_13", 3);
+
+        assertThat(stockIndex.decrement("iphone_13", 2)).isEqualTo(2);
+        assertThat(stockIndex.decrement("iphone_13", 5)).isEqualTo(1);
+        assertThat(stockIndex.get("iphone_13")).isZero();
+    }
+
+    @Test
+    void addIsClampedAtZero() {
+        stockIndex.put("iphone_13", 3);
+
+        stockIndex.add("iphone_13", -5);
+        assertThat(stockIndex.get("iphone_13")).isZero();
+
+        stockIndex.add("iphone_13", 2);
+        assertThat(stockIndex.get("iphone_13")).isEqualTo(2);
+    }
+
+    @Test
+    void changesMoveTheEtagAndNotifyListeners() {
+        List<String> changed = new ArrayList<>();
+        stockIndex.addListener(changed::add);
+        stockIndex.put("iphone_13", 3);
+        String etag = stockIndex.etag();
+
+        stockIndex.put("iphone_13", 3);
+        assertThat(stockIndex.etag()).isEqualTo(etag);
+
+        stockIndex.add("iphone_13", 2);
+        assertThat(stockIndex.etag()).isNotEqualTo(etag);
+        assertThat(changed).containsExactly("iphone_13", "iphone_13");
+    }
+
+    @Test
+    void retainAllDropsSkusThatAreNoLongerStored() {
+        stockIndex.put("iphone_13", 3);
+        stockIndex.put("pixel_8", 4);
+        List<String> changed = new ArrayList<>();
+        stockIndex.addListener(changed::add);
+
+        stockIndex.retainAll(Set.of("iphone_13"));
+
+        assertThat(stockIndex.get("pixel_8")).isNull();
+        assertThat(stockIndex.decrement("pixel_8", 1)).isZero();
+        assertThat(stockIndex.get("iphone_13")).isEqualTo(3);
+        assertThat(changed).containsExactly("pixel_8");
+    }
+
+    @Test
+    void holdsSkusAcrossManyChunks() {
+        for (int i = 0; i < 5000; i++) {
+            stockIndex.put("sku_" + i, i);
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            assertThat(stockIndex.get("sku_" + i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void concurrentDecrementsTakeEachUnitOnce() {
+        stockIndex.put("iphone_13", 10_000);
+        int threads = 8;
+        int[] taken = new int[threads];
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            CompletableFuture<?>[] workers = new CompletableFuture<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                workers[t] = CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        taken[worker] += stockIndex.decrement("iphone_13", 1);
+                    }
+                }, executor);
+            }
+            CompletableFuture.allOf(workers).join();
+        }
+
+        int total = 0;
+        for (int units : taken) {
+            total += units;
+        }
+        assertThat(total).isEqualTo(10_000);
+        assertThat(stockIndex.get("iphone_13")).isZero();
+    }
+}
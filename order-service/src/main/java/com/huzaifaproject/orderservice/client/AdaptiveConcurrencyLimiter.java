@@ -0,0 +1,220 @@
+package com.huzaifaproject.orderservice.client;
+
+import com.huzaifaproject.orderservice.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AIMD concurrency limit for the calls to one downstream service.
+ * The limit grows by one for each window of calls that completes within the latency threshold while the limit is
+ * actually used, and is multiplied by the backoff ratio when a call fails, times out or is too slow. Calls over the
+ * limit wait in a small bounded queue; once that is full they are rejected straight away. A permit is held until the
+ * response body has been read; a call cancelled by its caller gives its permit back without moving the limit.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter implements ExchangeFilterFunction {
+
+    private final String downstream;
+    private final Settings settings;
+    private final Counter rejectedCounter;
+
+    // Guarded by this
+    private double limit;
+    private int inFlight;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    public AdaptiveConcurrencyLimiter(String downstream, Settings settings, MeterRegistry meterRegistry) {
+        this.downstream = downstream;
+        this.settings = settings;
+        this.limit = settings.initialLimit();
+        this.rejectedCounter = Counter.builder("client.concurrency.rejected")
+                .description("Calls rejected because the concurrency limit and its queue were full")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        Gauge.builder("client.concurrency.limit", this, AdaptiveConcurrencyLimiter::currentLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        Gauge.builder("client.concurrency.inflight", this, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Calls currently holding a permit")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        Gauge.builder("client.concurrency.queue", this, AdaptiveConcurrencyLimiter::queueDepth)
+                .description("Calls waiting for a permit")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(this::acquire).flatMap(permit -> {
+            Call call = new Call();
+            return next.exchange(request)
+                    // The permit is held until the body has been read: the downstream is still busy with the call
+                    // after sending the headers, and a slow body is as much a sign of overload as a slow status line
+                    .map(response -> {
+                        boolean dropped = response.statusCode().is5xxServerError();
+                        return response.mutate()
+                                .body(body -> body.doFinally(signal -> call.finish(signal, dropped)))
+                                .build();
+                    })
+                    .doOnError(ex -> call.finish(SignalType.ON_ERROR, true))
+                    .doOnCancel(() -> call.finish(SignalType.CANCEL, false));
+        });
+    }
+
+    private Mono<Boolean> acquire() {
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return Mono.just(Boolean.TRUE);
+            }
+            if (waiters.size() >= settings.maxQueueSize()) {
+                rejectedCounter.increment();
+                return Mono.error(new ConcurrencyLimitExceededException(downstream + " is at its concurrency limit of "
+                        + (int) limit + ", please try again later"));
+            }
+        }
+
+        return Mono.<Boolean>create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            sink.onCancel(() -> abandon(waiter));
+            synchronized (this) {
+                // A permit may have been released since the fast path gave up
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    waiter.granted = true;
+                } else {
+                    waiters.addLast(waiter);
+                }
+            }
+            if (waiter.granted) {
+                sink.success(Boolean.TRUE);
+            }
+        }).timeout(settings.maxQueueWait())
+                .onErrorMap(TimeoutException.class, ex -> {
+                    rejectedCounter.increment();
+                    return new ConcurrencyLimitExceededException("Timed out waiting for a " + downstream + " permit");
+                });
+    }
+
+    // A waiter cancelled by its caller or by the queue timeout gives back the permit if it had already been granted
+    private void abandon(Waiter waiter) {
+        boolean wasGranted;
+        synchronized (this) {
+            wasGranted = waiter.granted;
+            if (!wasGranted) {
+                waiters.remove(waiter);
+            }
+        }
+        if (wasGranted) {
+            release(0, false, false);
+        }
+    }
+
+    private void release(long latencyNanos, boolean dropped) {
+        release(latencyNanos, dropped, true);
+    }
+
+    private void release(long latencyNanos, boolean dropped, boolean adjust) {
+        Waiter next;
+        synchronized (this) {
+            if (adjust) {
+                adjustLimit(latencyNanos, dropped);
+            }
+            inFlight--;
+            next = grantNext();
+        }
+        while (next != null) {
+            next.sink.success(Boolean.TRUE);
+            synchronized (this) {
+                next = grantNext();
+            }
+        }
+    }
+
+    // Called with the lock held
+    private Waiter grantNext() {
+        if (inFlight >= (int) limit || waiters.isEmpty()) {
+            return null;
+        }
+        Waiter waiter = waiters.pollFirst();
+        waiter.granted = true;
+        inFlight++;
+        return waiter;
+    }
+
+    // Called with the lock held
+    private void adjustLimit(long latencyNanos, boolean dropped) {
+        double previous = limit;
+        if (dropped || latencyNanos > settings.latencyThreshold().toNanos()) {
+            limit = Math.max(settings.minLimit(), limit * settings.backoffRatio());
+        } else if (inFlight * 2 >= limit) {
+            // Only grow while the limit is actually being used, otherwise it would drift up on light load
+            limit = Math.min(settings.maxLimit(), limit + 1 / limit);
+        }
+        if ((int) previous != (int) limit) {
+            log.debug("Concurrency limit for {} changed from {} to {}", downstream, (int) previous, (int) limit);
+        }
+    }
+
+    private synchronized double currentLimit() {
+        return (int) limit;
+    }
+
+    private synchronized double inFlight() {
+        return inFlight;
+    }
+
+    private synchronized double queueDepth() {
+        return waiters.size();
+    }
+
+    public record Settings(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                           Duration latencyThreshold, int maxQueueSize, Duration maxQueueWait) {
+    }
+
+    // One permit held by one call, given back exactly once however the call ends
+    private final class Call {
+        private final long start = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        // A cancellation says nothing about the downstream (e.g. a hedged request that lost the race), so it only
+        // returns the permit and leaves the limit alone
+        void finish(SignalType signal, boolean dropped) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            if (signal == SignalType.CANCEL) {
+                release(0, false, false);
+            } else {
+                release(System.nanoTime() - start, dropped || signal == SignalType.ON_ERROR);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Boolean> sink;
+        // Guarded by the limiter's lock
+        private boolean granted;
+
+        private Waiter(MonoSink<Boolean> sink) {
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.huzaifaproject.orderservice.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.huzaifaproject.orderservice.dto.InventoryResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Looks up stock in inventory-service through a bounded near-cache of SKUs known to be in stock.
+ * Only positive answers are cached: an out-of-stock SKU is always re-checked against inventory-service.
+ */
+@Component
+@Slf4j
+public class InventoryClient {
+
+    private final WebClient webClient;
+    // Same pool and limiter, but no load balancer: used when the hedger has already picked the instance
+    private final WebClient directWebClient;
+    private final RequestHedger requestHedger;
+    // Shares concurrent lookups of the same SKUs and batches new ones into one request
+    private final InventoryLookupCoalescer lookupCoalescer;
+    // skuCode -> last known quantity, kept fresh by inventory stock-changed events
+    private final Cache<String, Integer> availabilityCache;
+
+    public InventoryClient(@Qualifier("inventoryWebClient") WebClient webClient,
+                           @Qualifier("directInventoryWebClient") WebClient directWebClient,
+                           @Qualifier("inventoryRequestHedger") RequestHedger requestHedger,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.inventory.cache.ttl-seconds:30}") long ttlSeconds,
+                           @Value("${app.inventory.cache.max-size:10000}") long maxSize,
+                           @Value("${app.inventory.coalescing.window-ms:2}") long coalescingWindowMs,
+                           @Value("${app.inventory.coalescing.max-batch-size:100}") int coalescingMaxBatchSize,
+                           @Value("${app.inventory.coalescing.timeout-ms:5000}") long coalescingTimeoutMs) {
+        this.webClient = webClient;
+        this.directWebClient = directWebClient;
+        this.requestHedger = requestHedger;
+        this.lookupCoalescer = new InventoryLookupCoalescer(this::fetchStock, Duration.ofMillis(coalescingWindowMs),
+                coalescingMaxBatchSize, Duration.ofMillis(coalescingTimeoutMs), meterRegistry);
+        this.availabilityCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, availabilityCache, "inventory-availability");
+    }
+
+    public List<InventoryResponse> checkStock(List<String> skuCodes) {
+        Set<String> distinctSkuCodes = new LinkedHashSet<>(skuCodes);
+        List<InventoryResponse> responses = new ArrayList<>(distinctSkuCodes.size());
+        List<String> uncachedSkuCodes = new ArrayList<>();
+
+        for (String skuCode : distinctSkuCodes) {
+            Integer quantity = availabilityCache.getIfPresent(skuCode);
+            if (quantity != null && quantity > 0) {
+                responses.add(new InventoryResponse(skuCode, true, quantity));
+            } else {
+                uncachedSkuCodes.add(skuCode);
+            }
+        }
+
+        if (uncachedSkuCodes.isEmpty()) {
+            log.debug("Served stock check for {} from the near-cache", distinctSkuCodes);
+            return responses;
+        }
+
+        for (List<InventoryResponse> skuResponses : lookupCoalescer.lookup(uncachedSkuCodes).values()) {
+            for (InventoryResponse response : skuResponses) {
+                updateCache(response.getSkuCode(), response.isInStock() ? response.getQuantity() : null);
+                responses.add(response);
+            }
+        }
+        return responses;
+    }
+
+    // Applies a stock level pushed by inventory-service; zero or unknown stock removes the entry
+    public void onStockChanged(String skuCode, Integer quantity) {
+        updateCache(skuCode, quantity);
+    }
+
+    private Mono<InventoryResponse[]> fetchStock(List<String> skuCodes) {
+        return requestHedger.hedge(
+                instance -> lookupStock(directWebClient, instance.getUri().toString(), skuCodes),
+                () -> lookupStock(webClient, "http://inventory-service", skuCodes));
+    }
+
+    private Mono<InventoryResponse[]> lookupStock(WebClient client, String baseUrl, List<String> skuCodes) {
+        return client.get()
+                .uri(baseUrl + "/api/inventory", uriBuilder -> uriBuilder.queryParam("skuCode", skuCodes).build())
+                .retrieve()
+                .bodyToMono(InventoryResponse[].class);
+    }
+
+    private void updateCache(String skuCode, Integer quantity) {
+        if (quantity != null && quantity > 0) {
+            availabilityCache.put(skuCode, quantity);
+        } else {
+            availabilityCache.invalidate(skuCode);
+        }
+    }
+}
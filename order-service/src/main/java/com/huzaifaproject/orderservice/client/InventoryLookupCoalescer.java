@@ -0,0 +1,152 @@
+package com.huzaifaproject.orderservice.client;
+
+import com.huzaifaproject.orderservice.dto.InventoryResponse;
+import com.huzaifaproject.orderservice.exception.DownstreamTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Single-flight, micro-batched stock lookups. A SKU that is already queued or in flight is joined instead of
+ * requested again, and new SKUs from concurrent callers are gathered for a short window into one skuCode= query.
+ * Nothing is kept once a request completes, so every caller gets an answer fetched after it asked or while it waited.
+ */
+class InventoryLookupCoalescer {
+
+    private final Function<List<String>, Mono<InventoryResponse[]>> fetcher;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Duration timeout;
+    private final Counter downstreamRequests;
+    private final Counter coalescedSkuCodes;
+
+    // Guarded by this: SKUs queued or in flight, and the SKUs of the batch still being gathered
+    private final Map<String, CompletableFuture<List<InventoryResponse>>> pending = new HashMap<>();
+    private final List<String> batch = new ArrayList<>();
+    private boolean flushScheduled;
+
+    InventoryLookupCoalescer(Function<List<String>, Mono<InventoryResponse[]>> fetcher, Duration window,
+                             int maxBatchSize, Duration timeout, MeterRegistry meterRegistry) {
+        this.fetcher = fetcher;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+        this.downstreamRequests = Counter.builder("inventory.lookup.requests")
+                .description("Stock lookups sent to inventory-service")
+                .register(meterRegistry);
+        this.coalescedSkuCodes = Counter.builder("inventory.lookup.coalesced")
+                .description("SKU lookups served by joining a request that was already queued or in flight")
+                .register(meterRegistry);
+    }
+
+    // Blocks until every SKU is answered or the timeout passes; SKUs unknown to inventory-service map to an empty list
+    Map<String, List<InventoryResponse>> lookup(Collection<String> skuCodes) {
+        Map<String, CompletableFuture<List<InventoryResponse>>> futures = new LinkedHashMap<>();
+        List<List<String>> readyBatches;
+        synchronized (this) {
+            for (String skuCode : skuCodes) {
+                CompletableFuture<List<InventoryResponse>> future = pending.get(skuCode);
+                if (future == null) {
+                    future = new CompletableFuture<>();
+                    pending.put(skuCode, future);
+                    batch.add(skuCode);
+                } else {
+                    coalescedSkuCodes.increment();
+                }
+                futures.put(skuCode, future);
+            }
+            readyBatches = takeBatches(window.isZero());
+            if (!batch.isEmpty() && !flushScheduled) {
+                flushScheduled = true;
+                Schedulers.parallel().schedule(this::flushWindow, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        readyBatches.forEach(this::send);
+
+        // Giving up does not cancel the shared requests: other callers may still be waiting on them
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Map<String, List<InventoryResponse>> results = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, CompletableFuture<List<InventoryResponse>>> entry : futures.entrySet()) {
+                long remainingNanos = Math.max(0, deadline - System.nanoTime());
+                results.put(entry.getKey(), entry.getValue().get(remainingNanos, TimeUnit.NANOSECONDS));
+            }
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : new CompletionException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new DownstreamTimeoutException("inventory-service did not answer the stock lookup within "
+                    + timeout.toMillis() + " ms");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DownstreamTimeoutException("Interrupted while waiting for the inventory-service stock lookup");
+        }
+        return results;
+    }
+
+    private void flushWindow() {
+        List<List<String>> readyBatches;
+        synchronized (this) {
+            flushScheduled = false;
+            readyBatches = takeBatches(true);
+        }
+        readyBatches.forEach(this::send);
+    }
+
+    // Called with the lock held. Takes every full batch, and with all the partial remainder too, so no request
+    // carries more than maxBatchSize SKUs however many a single caller asked for
+    private List<List<String>> takeBatches(boolean all) {
+        List<List<String>> taken = new ArrayList<>();
+        while (batch.size() >= maxBatchSize || (all && !batch.isEmpty())) {
+            List<String> head = batch.subList(0, Math.min(maxBatchSize, batch.size()));
+            taken.add(new ArrayList<>(head));
+            head.clear();
+        }
+        return taken;
+    }
+
+    private void send(List<String> skuCodes) {
+        if (skuCodes.isEmpty()) {
+            return;
+        }
+        downstreamRequests.increment();
+        Mono.defer(() -> fetcher.apply(skuCodes))
+                .defaultIfEmpty(new InventoryResponse[0])
+                .subscribe(responses -> complete(skuCodes, responses), error -> fail(skuCodes, error));
+    }
+
+    private void complete(List<String> skuCodes, InventoryResponse[] responses) {
+        Map<String, List<InventoryResponse>> bySkuCode = new HashMap<>();
+        for (InventoryResponse response : responses) {
+            bySkuCode.computeIfAbsent(response.getSkuCode(), skuCode -> new ArrayList<>()).add(response);
+        }
+        for (String skuCode : skuCodes) {
+            // Unregister first so a caller arriving after the answer starts a fresh lookup
+            release(skuCode).complete(bySkuCode.getOrDefault(skuCode, List.of()));
+        }
+    }
+
+    private void fail(List<String> skuCodes, Throwable error) {
+        for (String skuCode : skuCodes) {
+            release(skuCode).completeExceptionally(error);
+        }
+    }
+
+    private synchronized CompletableFuture<List<InventoryResponse>> release(String skuCode) {
+        return pending.remove(skuCode);
+    }
+}
@@ -0,0 +1,55 @@
+package com.huzaifaproject.orderservice.client;
+
+import com.huzaifaproject.orderservice.dto.BulkDecreaseQuantityRequest;
+import com.huzaifaproject.orderservice.dto.BulkDecreaseQuantityResponse;
+import com.huzaifaproject.orderservice.dto.OrderLineItemsDto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+
+/**
+ * Calls product-service to keep product stock in line with placed orders.
+ */
+@Component
+public class ProductClient {
+
+    private final WebClient webClient;
+
+    public ProductClient(@Qualifier("productWebClient") WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    // Decreases every line of an order with a single request; per-SKU outcomes are in the response
+    public BulkDecreaseQuantityResponse decreaseQuantities(List<OrderLineItemsDto> items) {
+        return decreaseQuantities(null, items);
+    }
+
+    // Idempotent variant: product-service applies the decrease of operationId once, however often it is sent.
+    // Each SKU may appear only once in items
+    public BulkDecreaseQuantityResponse decreaseQuantities(String operationId, List<OrderLineItemsDto> items) {
+        return webClient.post()
+                .uri("http://product-service/api/product/decrease-quantity/bulk")
+                .bodyValue(new BulkDecreaseQuantityRequest(items, operationId))
+                .retrieve()
+                .bodyToMono(BulkDecreaseQuantityResponse.class)
+                .block();
+    }
+
+    // Puts back lines decreased without an operation id
+    public BulkDecreaseQuantityResponse increaseQuantities(List<OrderLineItemsDto> items) {
+        return increaseQuantities(null, items);
+    }
+
+    // Undoes the decrease of operationId on the products it was applied to and not undone yet, used when an order
+    // saga compensates; lines it never reached are left alone
+    public BulkDecreaseQuantityResponse increaseQuantities(String operationId, List<OrderLineItemsDto> items) {
+        return webClient.post()
+                .uri("http://product-service/api/product/increase-quantity/bulk")
+                .bodyValue(new BulkDecreaseQuantityRequest(items, operationId))
+                .retrieve()
+                .bodyToMono(BulkDecreaseQuantityResponse.class)
+                .block();
+    }
+}
@@ -0,0 +1,157 @@
+package com.huzaifaproject.orderservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Hedges idempotent calls to one service: when the first instance has not answered within a percentile of recent
+ * latencies, the same call goes to a second, different instance and the first response wins, cancelling the other.
+ * Hedges are paid for from a budget that earns a fraction of a hedge per call, so they stay a few percent of traffic.
+ */
+@Slf4j
+public class RequestHedger {
+
+    private final String serviceId;
+    private final Settings settings;
+    private final DiscoveryClient discoveryClient;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+
+    // Guarded by this: ring buffer of recent successful call latencies and the delay derived from it
+    private final long[] latencies;
+    private int latencyCount;
+    private int latencyIndex;
+    private int samplesSinceRecompute;
+    private long hedgeDelayNanos;
+    private double budgetTokens;
+
+    // Instances as last read from discovery, refreshed at most every instancesRefresh instead of on every call
+    private volatile List<ServiceInstance> instances = List.of();
+    private volatile long instancesFetchedAtNanos;
+    private volatile boolean instancesFetched;
+
+    public RequestHedger(String serviceId, Settings settings, DiscoveryClient discoveryClient,
+                         MeterRegistry meterRegistry) {
+        this.serviceId = serviceId;
+        this.settings = settings;
+        this.discoveryClient = discoveryClient;
+        this.latencies = new long[settings.windowSize()];
+        this.hedgeDelayNanos = settings.minDelay().toNanos();
+        this.hedgesSent = Counter.builder("client.hedge.sent")
+                .description("Hedged requests sent to a second instance")
+                .tag("downstream", serviceId)
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("client.hedge.won")
+                .description("Hedged requests that answered before the original request")
+                .tag("downstream", serviceId)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return settings.enabled();
+    }
+
+    /**
+     * Runs call against one instance and, after the hedge delay, against another.
+     * With hedging disabled or fewer than two instances registered, unhedged is used instead.
+     */
+    public <T> Mono<T> hedge(Function<ServiceInstance, Mono<T>> call, Supplier<Mono<T>> unhedged) {
+        if (!settings.enabled()) {
+            return unhedged.get();
+        }
+        List<ServiceInstance> instances = currentInstances();
+        if (instances.size() < 2) {
+            return unhedged.get();
+        }
+
+        int primaryIndex = ThreadLocalRandom.current().nextInt(instances.size());
+        int hedgeIndex = (primaryIndex + 1 + ThreadLocalRandom.current().nextInt(instances.size() - 1)) % instances.size();
+        ServiceInstance primaryInstance = instances.get(primaryIndex);
+        ServiceInstance hedgeInstance = instances.get(hedgeIndex);
+
+        long delayNanos = earnBudgetAndGetDelay();
+        Mono<T> primary = timed(call.apply(primaryInstance));
+        Mono<T> hedged = Mono.delay(Duration.ofNanos(delayNanos))
+                .flatMap(tick -> {
+                    if (!trySpendBudget()) {
+                        return Mono.empty();
+                    }
+                    hedgesSent.increment();
+                    log.debug("Hedging {} call to {} after {} ms", serviceId, hedgeInstance.getInstanceId(),
+                            Duration.ofNanos(delayNanos).toMillis());
+                    return timed(call.apply(hedgeInstance)).doOnNext(result -> hedgesWon.increment());
+                });
+
+        // The first value wins and the other source is cancelled; an empty hedge leaves the primary to decide
+        return Mono.firstWithValue(primary, hedged)
+                .onErrorMap(NoSuchElementException.class::isInstance, RequestHedger::underlyingFailure);
+    }
+
+    // Concurrent callers may refresh at the same time; each just reads the same list from the discovery client
+    private List<ServiceInstance> currentInstances() {
+        long now = System.nanoTime();
+        if (!instancesFetched || now - instancesFetchedAtNanos >= settings.instancesRefresh().toNanos()) {
+            instances = List.copyOf(discoveryClient.getInstances(serviceId));
+            instancesFetchedAtNanos = now;
+            instancesFetched = true;
+        }
+        return instances;
+    }
+
+    private <T> Mono<T> timed(Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doOnNext(result -> recordLatency(System.nanoTime() - start));
+        });
+    }
+
+    // firstWithValue reports "no value" when every source failed or was empty; surface the first real failure instead
+    private static Throwable underlyingFailure(Throwable ex) {
+        List<Throwable> failures = Exceptions.unwrapMultiple(ex.getCause());
+        return failures.isEmpty() ? ex : failures.get(0);
+    }
+
+    private synchronized long earnBudgetAndGetDelay() {
+        budgetTokens = Math.min(settings.maxBurst(), budgetTokens + settings.budgetPercent() / 100.0);
+        return hedgeDelayNanos;
+    }
+
+    private synchronized boolean trySpendBudget() {
+        if (budgetTokens < 1) {
+            return false;
+        }
+        budgetTokens -= 1;
+        return true;
+    }
+
+    private synchronized void recordLatency(long latencyNanos) {
+        latencies[latencyIndex] = latencyNanos;
+        latencyIndex = (latencyIndex + 1) % latencies.length;
+        latencyCount = Math.min(latencyCount + 1, latencies.length);
+        // Re-sorting the window on every call would cost more than the hedge saves, so refresh periodically
+        if (++samplesSinceRecompute >= settings.recomputeEvery()) {
+            samplesSinceRecompute = 0;
+            long[] window = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(window);
+            long percentileNanos = window[(int) Math.min(window.length - 1, Math.ceil(settings.percentile() * window.length) - 1)];
+            hedgeDelayNanos = Math.max(settings.minDelay().toNanos(), percentileNanos);
+        }
+    }
+
+    public record Settings(boolean enabled, double percentile, Duration minDelay, double budgetPercent,
+                           double maxBurst, int windowSize, int recomputeEvery, Duration instancesRefresh) {
+    }
+}
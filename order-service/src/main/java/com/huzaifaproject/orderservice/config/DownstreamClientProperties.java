@@ -0,0 +1,28 @@
+package com.huzaifaproject.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Connection settings of the prebuilt downstream clients, bound from app.clients.inventory-service.*
+ * and app.clients.product-service.*.
+ */
+@ConfigurationProperties(prefix = "app.clients")
+public record DownstreamClientProperties(@DefaultValue Connection inventoryService,
+                                         @DefaultValue Connection productService) {
+
+    public record Connection(@DefaultValue("50") int maxConnections,
+                             // Callers allowed to wait for a pooled connection before acquisition fails fast
+                             @DefaultValue("100") int pendingAcquireMaxCount,
+                             @DefaultValue("2s") Duration pendingAcquireTimeout,
+                             @DefaultValue("30s") Duration maxIdleTime,
+                             @DefaultValue("5m") Duration maxLifeTime,
+                             @DefaultValue("1s") Duration connectTimeout,
+                             @DefaultValue("3s") Duration responseTimeout,
+                             @DefaultValue("true") boolean keepAlive,
+                             // h2c with HTTP/1.1 fallback; the downstream needs server.http2.enabled=true to benefit
+                             @DefaultValue("false") boolean http2) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.huzaifaproject.orderservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+
+// Provisions the topics order-service produces; KafkaAdmin creates them, or adds partitions, on startup
+@Configuration
+public class KafkaTopicConfig {
+
+    @Value("${app.kafka.partitions:6}")
+    private int partitions;
+
+    @Value("${app.kafka.replication-factor:1}")
+    private short replicationFactor;
+
+    @Bean
+    public KafkaAdmin.NewTopics orderTopics(@Value("${app.topics.order-placed:order-placed}") String orderPlacedTopic,
+                                            @Value("${app.topics.order-created:order-created}") String orderCreatedTopic,
+                                            @Value("${app.topics.inventory-release:inventory-release}") String inventoryReleaseTopic,
+                                            @Value("${app.topics.order-status-changed:order-status-changed}") String orderStatusChangedTopic) {
+        return new KafkaAdmin.NewTopics(
+                topic(orderPlacedTopic),
+                topic(orderCreatedTopic),
+                topic(inventoryReleaseTopic),
+                topic(orderStatusChangedTopic));
+    }
+
+    private NewTopic topic(String name) {
+        return TopicBuilder.name(name)
+                .partitions(partitions)
+                .replicas(replicationFactor)
+                .build();
+    }
+}
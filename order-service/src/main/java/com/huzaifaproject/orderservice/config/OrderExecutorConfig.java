@@ -0,0 +1,25 @@
+package com.huzaifaproject.orderservice.config;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Executor used to run order placement off the servlet thread
+@Configuration
+public class OrderExecutorConfig {
+
+    // One virtual thread per placement, so blocking on inventory/product calls never parks a platform thread.
+    // The caller's observation travels with each task so the placement phases nest under the request span.
+    @Bean(destroyMethod = "close")
+    public ExecutorService orderPlacementExecutor() {
+        ThreadFactory threadFactory = Thread.ofVirtual().name("order-placement-", 0).factory();
+        ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+        return ContextExecutorService.wrap(Executors.newThreadPerTaskExecutor(threadFactory),
+                snapshotFactory::captureAll);
+    }
+}
@@ -0,0 +1,62 @@
+package com.huzaifaproject.orderservice.config;
+
+import com.huzaifaproject.orderservice.service.OrderNumberGenerator;
+import com.huzaifaproject.orderservice.service.SnowflakeOrderNumberGenerator;
+import com.huzaifaproject.orderservice.service.UuidOrderNumberGenerator;
+import com.huzaifaproject.orderservice.service.WorkerIdLease;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+// Chooses how order numbers are generated (app.order-number.strategy=snowflake|uuid)
+@Configuration
+@Slf4j
+public class OrderNumberConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.order-number.strategy", havingValue = "snowflake", matchIfMissing = true)
+    public OrderNumberGenerator snowflakeOrderNumberGenerator(
+            @Value("${app.order-number.worker-id:-1}") int configuredWorkerId,
+            ObjectProvider<WorkerIdLease> workerIdLease) {
+        if (configuredWorkerId >= 0) {
+            // The operator guarantees the id is unique across instances
+            log.info("Generating snowflake order numbers with configured worker id {}", configuredWorkerId);
+            return new SnowflakeOrderNumberGenerator(configuredWorkerId);
+        }
+        WorkerIdLease lease = workerIdLease.getObject();
+        log.info("Generating snowflake order numbers with leased worker id {}", lease.workerId());
+        return new SnowflakeOrderNumberGenerator(lease.workerId(), lease::isValid);
+    }
+
+    // Without a configured worker id, each instance leases a free one from the database under its Eureka instance id
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("'${app.order-number.strategy:snowflake}' == 'snowflake' and ${app.order-number.worker-id:-1} < 0")
+    public WorkerIdLease workerIdLease(JdbcTemplate jdbcTemplate,
+                                       ObjectProvider<EurekaInstanceConfigBean> eurekaInstance,
+                                       @Value("${app.order-number.lease-ttl-seconds:60}") long leaseTtlSeconds) {
+        return WorkerIdLease.acquire(jdbcTemplate, instanceId(eurekaInstance.getIfAvailable()),
+                Duration.ofSeconds(leaseTtlSeconds));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.order-number.strategy", havingValue = "uuid")
+    public OrderNumberGenerator uuidOrderNumberGenerator() {
+        return new UuidOrderNumberGenerator();
+    }
+
+    private String instanceId(EurekaInstanceConfigBean eurekaInstance) {
+        if (eurekaInstance == null || eurekaInstance.getInstanceId() == null) {
+            return "order-service-" + UUID.randomUUID();
+        }
+        return eurekaInstance.getInstanceId();
+    }
+}
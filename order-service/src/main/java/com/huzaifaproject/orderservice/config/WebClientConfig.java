@@ -1,16 +1,154 @@
 package com.huzaifaproject.orderservice.config;
 
+import com.huzaifaproject.orderservice.client.AdaptiveConcurrencyLimiter;
+import com.huzaifaproject.orderservice.client.RequestHedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
+@EnableConfigurationProperties(DownstreamClientProperties.class)
 public class WebClientConfig {
 
     @Bean
+    @Primary
     @LoadBalanced
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder webClientBuilder(ObservationRegistry observationRegistry) {
+        return WebClient.builder().observationRegistry(observationRegistry);
+    }
+
+    // Not load-balanced: for calls addressed to one concrete instance, such as hedged inventory lookups
+    @Bean
+    public WebClient.Builder directWebClientBuilder(ObservationRegistry observationRegistry) {
+        return WebClient.builder().observationRegistry(observationRegistry);
+    }
+
+    // Prebuilt clients: each downstream owns a connection pool, timeouts and a concurrency limiter
+    @Bean
+    public WebClient inventoryWebClient(WebClient.Builder webClientBuilder,
+                                        @Qualifier("inventoryConnectionProvider") ConnectionProvider connectionProvider,
+                                        @Qualifier("inventoryConcurrencyLimiter") AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                        DownstreamClientProperties properties) {
+        return webClientBuilder.clone()
+                .clientConnector(connector(connectionProvider, properties.inventoryService()))
+                .filter(concurrencyLimiter)
+                .build();
+    }
+
+    // Shares the inventory pool, but skips the load balancer because the hedger picks the instance itself
+    @Bean
+    public WebClient directInventoryWebClient(@Qualifier("directWebClientBuilder") WebClient.Builder directWebClientBuilder,
+                                              @Qualifier("inventoryConnectionProvider") ConnectionProvider connectionProvider,
+                                              @Qualifier("inventoryConcurrencyLimiter") AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                              DownstreamClientProperties properties) {
+        return directWebClientBuilder.clone()
+                .clientConnector(connector(connectionProvider, properties.inventoryService()))
+                .filter(concurrencyLimiter)
+                .build();
+    }
+
+    @Bean
+    public WebClient productWebClient(WebClient.Builder webClientBuilder,
+                                      @Qualifier("productConnectionProvider") ConnectionProvider connectionProvider,
+                                      @Qualifier("productConcurrencyLimiter") AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                      DownstreamClientProperties properties) {
+        return webClientBuilder.clone()
+                .clientConnector(connector(connectionProvider, properties.productService()))
+                .filter(concurrencyLimiter)
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider inventoryConnectionProvider(DownstreamClientProperties properties) {
+        return connectionProvider("inventory-service", properties.inventoryService());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider productConnectionProvider(DownstreamClientProperties properties) {
+        return connectionProvider("product-service", properties.productService());
+    }
+
+    @Bean
+    public RequestHedger inventoryRequestHedger(
+            DiscoveryClient discoveryClient,
+            MeterRegistry meterRegistry,
+            @Value("${app.inventory.hedging.enabled:false}") boolean enabled,
+            @Value("${app.inventory.hedging.percentile:0.95}") double percentile,
+            @Value("${app.inventory.hedging.min-delay-ms:20}") long minDelayMs,
+            @Value("${app.inventory.hedging.budget-percent:5}") double budgetPercent,
+            @Value("${app.inventory.hedging.max-burst:10}") double maxBurst,
+            @Value("${app.inventory.hedging.window-size:1000}") int windowSize,
+            @Value("${app.inventory.hedging.recompute-every:100}") int recomputeEvery,
+            @Value("${app.inventory.hedging.instances-refresh-ms:30000}") long instancesRefreshMs) {
+        RequestHedger.Settings settings = new RequestHedger.Settings(enabled, percentile,
+                Duration.ofMillis(minDelayMs), budgetPercent, maxBurst, windowSize, recomputeEvery,
+                Duration.ofMillis(instancesRefreshMs));
+        return new RequestHedger("inventory-service", settings, discoveryClient, meterRegistry);
+    }
+
+    // Every downstream gets its own limiter so a slow inventory-service cannot starve product-service calls
+    @Bean
+    public AdaptiveConcurrencyLimiter inventoryConcurrencyLimiter(AdaptiveConcurrencyLimiter.Settings concurrencyLimitSettings,
+                                                                  MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter("inventory-service", concurrencyLimitSettings, meterRegistry);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter productConcurrencyLimiter(AdaptiveConcurrencyLimiter.Settings concurrencyLimitSettings,
+                                                                MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter("product-service", concurrencyLimitSettings, meterRegistry);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter.Settings concurrencyLimitSettings(
+            @Value("${app.clients.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${app.clients.concurrency.min-limit:2}") int minLimit,
+            @Value("${app.clients.concurrency.max-limit:200}") int maxLimit,
+            @Value("${app.clients.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${app.clients.concurrency.latency-threshold-ms:1000}") long latencyThresholdMs,
+            @Value("${app.clients.concurrency.max-queue-size:50}") int maxQueueSize,
+            @Value("${app.clients.concurrency.max-queue-wait-ms:200}") long maxQueueWaitMs) {
+        return new AdaptiveConcurrencyLimiter.Settings(initialLimit, minLimit, maxLimit, backoffRatio,
+                Duration.ofMillis(latencyThresholdMs), maxQueueSize, Duration.ofMillis(maxQueueWaitMs));
+    }
+
+    // metrics(true) publishes active, idle and pending connections per pool as reactor.netty.connection.provider.*
+    private static ConnectionProvider connectionProvider(String name, DownstreamClientProperties.Connection connection) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(connection.maxConnections())
+                .pendingAcquireMaxCount(connection.pendingAcquireMaxCount())
+                .pendingAcquireTimeout(connection.pendingAcquireTimeout())
+                .maxIdleTime(connection.maxIdleTime())
+                .maxLifeTime(connection.maxLifeTime())
+                .evictInBackground(connection.maxIdleTime())
+                .metrics(true)
+                .build();
+    }
+
+    private static ReactorClientHttpConnector connector(ConnectionProvider connectionProvider,
+                                                        DownstreamClientProperties.Connection connection) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connection.connectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, connection.keepAlive())
+                .responseTimeout(connection.responseTimeout());
+        if (connection.http2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return new ReactorClientHttpConnector(httpClient);
     }
 }
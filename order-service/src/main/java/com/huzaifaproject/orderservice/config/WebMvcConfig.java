@@ -0,0 +1,80 @@
+package com.huzaifaproject.orderservice.config;
+
+import com.huzaifaproject.orderservice.controller.PreferRespondAsync;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Enumeration;
+
+// Adds the Prefer: respond-async request condition behind @PreferRespondAsync
+@Configuration
+public class WebMvcConfig {
+
+    private static final String PREFER_HEADER = "Prefer";
+    private static final String RESPOND_ASYNC = "respond-async";
+
+    @Bean
+    public WebMvcRegistrations preferRespondAsyncRegistrations() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new RequestMappingHandlerMapping() {
+                    @Override
+                    protected RequestCondition<?> getCustomMethodCondition(Method method) {
+                        return AnnotatedElementUtils.hasAnnotation(method, PreferRespondAsync.class)
+                                ? RespondAsyncCondition.INSTANCE
+                                : null;
+                    }
+                };
+            }
+        };
+    }
+
+    // A mapping carrying this condition wins over the same mapping without it whenever both match
+    static final class RespondAsyncCondition implements RequestCondition<RespondAsyncCondition> {
+
+        static final RespondAsyncCondition INSTANCE = new RespondAsyncCondition();
+
+        @Override
+        public RespondAsyncCondition combine(RespondAsyncCondition other) {
+            return this;
+        }
+
+        @Override
+        public RespondAsyncCondition getMatchingCondition(HttpServletRequest request) {
+            return CorsUtils.isPreFlightRequest(request) || prefersRespondAsync(request) ? this : null;
+        }
+
+        @Override
+        public int compareTo(RespondAsyncCondition other, HttpServletRequest request) {
+            return 0;
+        }
+
+        // Preferences are comma separated and each may carry "=value" and ";parameters" after its name
+        static boolean prefersRespondAsync(HttpServletRequest request) {
+            Enumeration<String> headers = request.getHeaders(PREFER_HEADER);
+            while (headers != null && headers.hasMoreElements()) {
+                for (String preference : headers.nextElement().split(",")) {
+                    int nameEnd = preference.length();
+                    for (char delimiter : new char[]{'=', ';'}) {
+                        int index = preference.indexOf(delimiter);
+                        if (index >= 0 && index < nameEnd) {
+                            nameEnd = index;
+                        }
+                    }
+                    if (preference.substring(0, nameEnd).trim().equalsIgnoreCase(RESPOND_ASYNC)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,20 +1,45 @@
 package com.huzaifaproject.orderservice.controller;
 
+import com.huzaifaproject.orderservice.dto.BatchOrderResult;
+import com.huzaifaproject.orderservice.dto.OrderPage;
 import com.huzaifaproject.orderservice.dto.OrderRequest;
 import com.huzaifaproject.orderservice.dto.OrderResponse;
+import com.huzaifaproject.orderservice.dto.OrderStatusResponse;
+import com.huzaifaproject.orderservice.model.OrderStatus;
 import com.huzaifaproject.orderservice.security.JwtUsernameResolver;
+import com.huzaifaproject.orderservice.service.OrderIdempotencyStore;
+import com.huzaifaproject.orderservice.service.OrderPhase;
+import com.huzaifaproject.orderservice.service.OrderPhaseObserver;
+import com.huzaifaproject.orderservice.service.OrderSagaService;
 import com.huzaifaproject.orderservice.service.OrderService;
+import com.huzaifaproject.orderservice.service.OrderStatusNotifier;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import com.huzaifaproject.orderservice.exception.IdempotencyKeyMismatchException;
+import com.huzaifaproject.orderservice.exception.OrderProcessingException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/order")
@@ -22,37 +47,175 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class OrderController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final String IDEMPOTENCY_KEY_MESSAGE =
+            "Idempotency-Key must be between 1 and " + MAX_IDEMPOTENCY_KEY_LENGTH + " non-blank characters";
+    private static final LocalDateTime EXPORT_RANGE_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime EXPORT_RANGE_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final OrderService orderService;
     private final JwtUsernameResolver jwtUsernameResolver;
+    // Virtual-thread executor so placements never occupy the common ForkJoin pool
+    private final ExecutorService orderPlacementExecutor;
+    private final OrderIdempotencyStore orderIdempotencyStore;
+    private final OrderSagaService orderSagaService;
+    private final OrderStatusNotifier orderStatusNotifier;
+    private final OrderPhaseObserver orderPhaseObserver;
+
+    @Value("${app.orders.batch.max-size:500}")
+    private int maxBatchSize;
+
+    @Value("${app.orders.export.timeout-ms:1800000}")
+    private long exportTimeoutMs;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @CircuitBreaker(name = "inventory", fallbackMethod = "fallbackMethod")
     @TimeLimiter(name = "inventory")
     @Retry(name = "inventory")
-    public CompletableFuture<String> placeOrder(@RequestBody OrderRequest orderRequest, HttpServletRequest request) {
+    public CompletableFuture<String> placeOrder(@RequestBody OrderRequest orderRequest,
+                                                @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                @Size(max = MAX_IDEMPOTENCY_KEY_LENGTH, message = IDEMPOTENCY_KEY_MESSAGE)
+                                                @Pattern(regexp = ".*\\S.*", message = IDEMPOTENCY_KEY_MESSAGE)
+                                                String idempotencyKey,
+                                                HttpServletRequest request) {
         log.info("Placing Order");
-        String username = jwtUsernameResolver.resolveUsername(request);
-        return CompletableFuture.supplyAsync(() -> orderService.placeOrder(orderRequest, username));
+        String username = resolvePlacingUsername(request);
+        if (idempotencyKey == null) {
+            return CompletableFuture.supplyAsync(() -> orderService.placeOrder(orderRequest, username),
+                    orderPlacementExecutor);
+        }
+        return orderIdempotencyStore.placeOnce(username, idempotencyKey, orderRequest,
+                () -> CompletableFuture.supplyAsync(() -> orderService.placeOrder(orderRequest, username),
+                        orderPlacementExecutor));
     }
     
-    @GetMapping("/history")
+    // Prefer: respond-async selects the saga: the order is stored as PENDING and 202 is returned straight away
+    @PostMapping
+    @PreferRespondAsync
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CompletableFuture<OrderStatusResponse> submitOrder(@RequestBody OrderRequest orderRequest,
+                                                              @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                              @Size(max = MAX_IDEMPOTENCY_KEY_LENGTH, message = IDEMPOTENCY_KEY_MESSAGE)
+                                                              @Pattern(regexp = ".*\\S.*", message = IDEMPOTENCY_KEY_MESSAGE)
+                                                              String idempotencyKey,
+                                                              HttpServletRequest request) {
+        log.info("Submitting Order asynchronously");
+        String username = resolvePlacingUsername(request);
+        if (idempotencyKey == null) {
+            return CompletableFuture.supplyAsync(() -> orderService.submitOrder(orderRequest, username),
+                    orderPlacementExecutor);
+        }
+        return orderIdempotencyStore.placeOnce(username, idempotencyKey, orderRequest,
+                        () -> CompletableFuture.supplyAsync(
+                                () -> orderService.submitOrder(orderRequest, username).getOrderNumber(),
+                                orderPlacementExecutor))
+                .thenApply(orderNumber -> new OrderStatusResponse(orderNumber, OrderStatus.PENDING));
+    }
+
+    @GetMapping("/{orderNumber}/status")
+    @ResponseStatus(HttpStatus.OK)
+    public OrderStatusResponse getOrderStatus(@PathVariable String orderNumber, HttpServletRequest request) {
+        String username = jwtUsernameResolver.resolveUsername(request);
+        return orderSagaService.getStatus(orderNumber, username);
+    }
+
+    @GetMapping(value = "/{orderNumber}/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderStatus(@PathVariable String orderNumber, HttpServletRequest request) {
+        String username = jwtUsernameResolver.resolveUsername(request);
+        return orderStatusNotifier.subscribe(orderNumber,
+                () -> orderSagaService.getStatus(orderNumber, username).getStatus());
+    }
+
+    @PostMapping("/batch")
     @ResponseStatus(HttpStatus.OK)
-    public List<OrderResponse> getMyOrders(HttpServletRequest request) {
+    @CircuitBreaker(name = "inventory")
+    @TimeLimiter(name = "inventory-batch")
+    public CompletableFuture<List<BatchOrderResult>> placeOrders(@RequestBody List<OrderRequest> orderRequests,
+                                                                 HttpServletRequest request) {
+        log.info("Placing batch of {} orders", orderRequests.size());
+        if (orderRequests.isEmpty() || orderRequests.size() > maxBatchSize) {
+            throw new OrderProcessingException("A batch must contain between 1 and " + maxBatchSize + " orders");
+        }
+        String username = resolvePlacingUsername(request);
+        return CompletableFuture.supplyAsync(() -> orderService.placeOrders(orderRequests, username),
+                orderPlacementExecutor);
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<List<OrderResponse>> getMyOrders(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer size,
+                                                           HttpServletRequest request) {
         log.info("Getting my order history");
         String username = jwtUsernameResolver.resolveUsername(request);
-        return orderService.getMyOrders(username);
+        return toResponse(orderService.getMyOrders(username, cursor, size));
     }
     
     @GetMapping("/all")
-    @ResponseStatus(HttpStatus.OK)
-    public List<OrderResponse> getAllOrders() {
+    public ResponseEntity<List<OrderResponse>> getAllOrders(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size) {
         log.info("Getting all orders (admin)");
-        return orderService.getAllOrders();
+        return toResponse(orderService.getAllOrders(cursor, size));
+    }
+
+    // Written straight to the response from a WebAsyncTask, so the long export timeout applies to this endpoint only
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) {
+        LocalDateTime rangeStart = from != null ? from : EXPORT_RANGE_START;
+        LocalDateTime rangeEnd = to != null ? to : EXPORT_RANGE_END;
+        if (!rangeStart.isBefore(rangeEnd)) {
+            throw new OrderProcessingException("Export range 'from' must be before 'to'");
+        }
+        log.info("Exporting orders between {} and {} (gzip={})", rangeStart, rangeEnd, gzip);
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            OutputStream outputStream = response.getOutputStream();
+            if (gzip) {
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 64 * 1024);
+                orderService.exportOrders(rangeStart, rangeEnd, gzipOutputStream);
+                // finish() rather than close(): the servlet container owns the underlying stream
+                gzipOutputStream.finish();
+            } else {
+                orderService.exportOrders(rangeStart, rangeEnd, outputStream);
+            }
+            return null;
+        });
+    }
+
+    // Timed as the first placement phase; the read-only endpoints resolve the user without a phase timer
+    private String resolvePlacingUsername(HttpServletRequest request) {
+        return orderPhaseObserver.observe(OrderPhase.JWT_RESOLUTION, () -> jwtUsernameResolver.resolveUsername(request));
     }
 
-    public CompletableFuture<String> fallbackMethod(OrderRequest orderRequest, RuntimeException runtimeException) {
+    // The body stays a plain list; the cursor for the next page travels in a header
+    private ResponseEntity<List<OrderResponse>> toResponse(OrderPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.orders());
+    }
+
+    public CompletableFuture<String> fallbackMethod(OrderRequest orderRequest, String idempotencyKey,
+                                                    HttpServletRequest request, RuntimeException runtimeException) {
         log.info("Cannot Place Order Executing Fallback logic");
-        return CompletableFuture.supplyAsync(() -> "Oops! Something went wrong, please order after some time!");
+        return CompletableFuture.completedFuture("Oops! Something went wrong, please order after some time!");
+    }
+
+    // A reused Idempotency-Key is the client's mistake, not a downstream failure, so it is passed through as a 422
+    public CompletableFuture<String> fallbackMethod(OrderRequest orderRequest, String idempotencyKey,
+                                                    HttpServletRequest request,
+                                                    IdempotencyKeyMismatchException mismatchException) {
+        return CompletableFuture.failedFuture(mismatchException);
     }
 }
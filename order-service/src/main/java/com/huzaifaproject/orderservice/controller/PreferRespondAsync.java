@@ -0,0 +1,18 @@
+package com.huzaifaproject.orderservice.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a handler only to requests whose Prefer header (RFC 7240) includes respond-async, alone or next to other
+ * preferences such as {@code Prefer: respond-async, wait=5}. A plain {@code headers = "Prefer=respond-async"}
+ * mapping would compare the whole header value and miss those.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PreferRespondAsync {
+}
@@ -0,0 +1,18 @@
+package com.huzaifaproject.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResult {
+    // Position of the order in the submitted batch
+    private int index;
+    private String orderNumber;
+    private BatchOrderStatus status;
+    private String message;
+}
@@ -0,0 +1,6 @@
+package com.huzaifaproject.orderservice.dto;
+
+public enum BatchOrderStatus {
+    ACCEPTED,
+    REJECTED
+}
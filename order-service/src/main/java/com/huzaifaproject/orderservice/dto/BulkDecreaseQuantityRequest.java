@@ -0,0 +1,16 @@
+package com.huzaifaproject.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDecreaseQuantityRequest {
+    private List<OrderLineItemsDto> items;
+    // Makes product-service apply the decrease at most once, and lets an increase with the same id undo exactly it
+    private String operationId;
+}
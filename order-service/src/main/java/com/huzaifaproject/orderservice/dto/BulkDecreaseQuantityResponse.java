@@ -0,0 +1,16 @@
+package com.huzaifaproject.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDecreaseQuantityResponse {
+    private int updated;
+    private int failed;
+    private List<DecreaseQuantityResult> results;
+}
@@ -0,0 +1,19 @@
+package com.huzaifaproject.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DecreaseQuantityResult {
+    private String skuCode;
+    private Integer requestedQuantity;
+    private String status;
+    private String message;
+
+    public boolean isUpdated() {
+        return "UPDATED".equals(status);
+    }
+}
@@ -0,0 +1,7 @@
+package com.huzaifaproject.orderservice.dto;
+
+import java.util.List;
+
+// One keyset page of orders; nextCursor is null on the last page
+public record OrderPage(List<OrderResponse> orders, String nextCursor) {
+}
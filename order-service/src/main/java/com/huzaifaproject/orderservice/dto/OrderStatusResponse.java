@@ -0,0 +1,16 @@
+package com.huzaifaproject.orderservice.dto;
+
+import com.huzaifaproject.orderservice.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusResponse {
+    private String orderNumber;
+    private OrderStatus status;
+}
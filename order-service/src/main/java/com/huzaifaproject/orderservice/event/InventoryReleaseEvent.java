@@ -0,0 +1,5 @@
+package com.huzaifaproject.orderservice.event;
+
+// Compensation: tells inventory-service to give back the stock reserved for an order
+public record InventoryReleaseEvent(String orderNumber) {
+}
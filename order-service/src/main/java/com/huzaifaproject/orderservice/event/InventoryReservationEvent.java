@@ -0,0 +1,8 @@
+package com.huzaifaproject.orderservice.event;
+
+import java.time.Instant;
+
+// inventory-service's answer to an OrderCreatedEvent; expiresAt is when a held reservation lapses (null from older
+// inventory-service versions)
+public record InventoryReservationEvent(String orderNumber, boolean reserved, String reason, Instant expiresAt) {
+}
@@ -0,0 +1,31 @@
+package com.huzaifaproject.orderservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.orderservice.service.OrderSagaService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+// Drives the order saga forward when inventory-service answers a reservation request
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryReservationListener {
+
+    private final OrderSagaService orderSagaService;
+    private final ObjectMapper objectMapper;
+
+    // Answers are keyed by order number, so each consumer thread sees the answers of its orders in order
+    @KafkaListener(topics = "${app.topics.inventory-reservation:inventory-reservation}", groupId = "order-service",
+            concurrency = "${app.kafka.listener-concurrency:3}")
+    public void handleInventoryReservation(String message) {
+        try {
+            orderSagaService.handleInventoryReservation(
+                    objectMapper.readValue(message, InventoryReservationEvent.class));
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring malformed inventory reservation message: {}", message);
+        }
+    }
+}
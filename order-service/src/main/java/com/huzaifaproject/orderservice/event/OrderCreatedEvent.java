@@ -0,0 +1,10 @@
+package com.huzaifaproject.orderservice.event;
+
+import java.util.List;
+
+// First saga step: asks inventory-service to reserve stock for an order accepted asynchronously
+public record OrderCreatedEvent(String orderNumber, List<LineItem> lineItems) {
+
+    public record LineItem(String skuCode, Integer quantity) {
+    }
+}
@@ -1,24 +1,24 @@
 package com.huzaifaproject.orderservice.event;
 
+import com.huzaifaproject.orderservice.model.OutboxEvent;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 // Sends very simple String messages to Kafka
 @Component
 @RequiredArgsConstructor
 public class OrderEventProducer {
 
-    // Holds the topic name with a default value for local runs
-    @Value("${app.topics.order-placed:order-placed}")
-    private String orderPlacedTopic;
-
     // Spring injects a basic KafkaTemplate that publishes String messages
     private final KafkaTemplate<String, String> kafkaTemplate;
 
-    // Sends the order number as plain text to Kafka
-    public void sendOrderPlaced(String orderNumber) {
-        kafkaTemplate.send(orderPlacedTopic, orderNumber);
+    // Sends a stored outbox event as plain text; the caller decides what to do once the broker acknowledges it.
+    // The key (the order number) keeps all events of one order on one partition, in order
+    public CompletableFuture<SendResult<String, String>> send(OutboxEvent event) {
+        return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), event.getPayload());
     }
 }
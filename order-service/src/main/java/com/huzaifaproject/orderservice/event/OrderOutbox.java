@@ -0,0 +1,87 @@
+package com.huzaifaproject.orderservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.orderservice.model.Order;
+import com.huzaifaproject.orderservice.model.OutboxEvent;
+import com.huzaifaproject.orderservice.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+// Records order events in t_order_outbox; OrderOutboxRelay publishes them once the order has committed
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    @Value("${app.topics.order-placed:order-placed}")
+    private String orderPlacedTopic;
+
+    @Value("${app.topics.order-created:order-created}")
+    private String orderCreatedTopic;
+
+    @Value("${app.topics.inventory-release:inventory-release}")
+    private String inventoryReleaseTopic;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    // Must join the order transaction so the event and the order commit or roll back together
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderPlaced(Order order, boolean stockReserved) {
+        outboxEventRepository.save(orderPlacedEvent(order, stockReserved));
+    }
+
+    // Batch variant: the rows are inserted with batched statements
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ordersPlaced(List<Order> orders) {
+        outboxEventRepository.saveAll(orders.stream().map(order -> orderPlacedEvent(order, false)).toList());
+    }
+
+    // Starts the saga of an order accepted asynchronously
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Order order) {
+        List<OrderCreatedEvent.LineItem> lineItems = order.getOrderLineItemsList().stream()
+                .map(item -> new OrderCreatedEvent.LineItem(item.getSkuCode(), item.getQuantity()))
+                .toList();
+        OrderCreatedEvent event = new OrderCreatedEvent(order.getOrderNumber(), lineItems);
+        outboxEventRepository.save(outboxEvent(orderCreatedTopic, order.getOrderNumber(), toJson(event)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void inventoryReleased(String orderNumber) {
+        outboxEventRepository.save(outboxEvent(inventoryReleaseTopic, orderNumber,
+                toJson(new InventoryReleaseEvent(orderNumber))));
+    }
+
+    // Carries the line items so inventory-service can apply the stock change without calling back
+    private OutboxEvent orderPlacedEvent(Order order, boolean stockReserved) {
+        List<OrderPlacedEvent.LineItem> lineItems = order.getOrderLineItemsList().stream()
+                .map(item -> new OrderPlacedEvent.LineItem(item.getSkuCode(), item.getQuantity()))
+                .toList();
+        OrderPlacedEvent event = new OrderPlacedEvent(order.getOrderNumber(), lineItems, stockReserved);
+        return outboxEvent(orderPlacedTopic, order.getOrderNumber(), toJson(event));
+    }
+
+    private OutboxEvent outboxEvent(String topic, String messageKey, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setTopic(topic);
+        event.setMessageKey(messageKey);
+        event.setPayload(payload);
+        event.setCreatedAt(Instant.now());
+        return event;
+    }
+
+    private String toJson(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize " + event.getClass().getSimpleName(), ex);
+        }
+    }
+}
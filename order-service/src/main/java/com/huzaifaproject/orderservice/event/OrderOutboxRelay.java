@@ -0,0 +1,139 @@
+package com.huzaifaproject.orderservice.event;
+
+import com.huzaifaproject.orderservice.model.OutboxEvent;
+import com.huzaifaproject.orderservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains t_order_outbox to Kafka in batches, deleting rows only after the broker acknowledged them. A batch is
+ * claimed in one short transaction and published outside of it, so no row lock or connection is held while
+ * waiting for acks.
+ */
+@Component
+@Slf4j
+public class OrderOutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderEventProducer orderEventProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    // Age in milliseconds of the oldest event seen by the last drain
+    private final AtomicLong lagMillis = new AtomicLong();
+    // Pending-event count for the gauge, recounted at most once per pending-refresh-ms instead of on every scrape
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private volatile long pendingCountedAt;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    // How long claimed rows stay with this relay before another one may pick them up
+    @Value("${app.outbox.claim-timeout-ms:60000}")
+    private long claimTimeoutMs;
+
+    @Value("${app.outbox.pending-refresh-ms:10000}")
+    private long pendingRefreshMs;
+
+    public OrderOutboxRelay(OutboxEventRepository outboxEventRepository,
+                            OrderEventProducer orderEventProducer,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.orderEventProducer = orderEventProducer;
+        this.transactionTemplate = transactionTemplate;
+        this.publishedCounter = Counter.builder("order.outbox.published")
+                .description("Outbox events acknowledged by Kafka")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("order.outbox.failed")
+                .description("Outbox events that Kafka did not acknowledge and will be retried")
+                .register(meterRegistry);
+        Gauge.builder("order.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest outbox event waiting to be published")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("order.outbox.pending", this, OrderOutboxRelay::pendingEvents)
+                .description("Outbox events not yet published")
+                .register(meterRegistry);
+    }
+
+    // The linger bounds how long an event waits in the table when the relay is idle
+    @Scheduled(fixedDelayString = "${app.outbox.linger-ms:200}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    private int relayBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> outboxEventRepository.claimNextBatch(
+                batchSize, now, now.plusMillis(claimTimeoutMs)));
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Duration.between(batch.get(0).getCreatedAt(), Instant.now()).toMillis());
+
+        // Hand the whole batch to the producer first so Kafka can group it, then wait for the acks
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            sends.add(orderEventProducer.send(event));
+        }
+
+        List<Long> acknowledgedIds = new ArrayList<>(batch.size());
+        List<Long> unacknowledgedIds = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                sends.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                acknowledgedIds.add(batch.get(i).getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // The remaining claims expire on their own
+                break;
+            } catch (Exception e) {
+                failedCounter.increment();
+                unacknowledgedIds.add(batch.get(i).getId());
+                log.warn("Outbox event {} was not acknowledged, will retry: {}", batch.get(i).getId(), e.getMessage());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxEventRepository.deleteAllByIdInBatch(acknowledgedIds);
+            if (!unacknowledgedIds.isEmpty()) {
+                outboxEventRepository.releaseClaims(unacknowledgedIds);
+            }
+        });
+        publishedCounter.increment(acknowledgedIds.size());
+        // A partially failed batch ends this drain so the broker gets a linger period to recover
+        return acknowledgedIds.size() == batch.size() ? batch.size() : 0;
+    }
+
+    private double pendingEvents() {
+        long now = System.currentTimeMillis();
+        if (now - pendingCountedAt >= pendingRefreshMs) {
+            pendingCountedAt = now;
+            pendingEvents.set(outboxEventRepository.count());
+        }
+        return pendingEvents.get();
+    }
+}
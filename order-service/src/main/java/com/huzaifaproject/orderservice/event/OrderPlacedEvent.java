@@ -0,0 +1,10 @@
+package com.huzaifaproject.orderservice.event;
+
+import java.util.List;
+
+// A placed order; stockReserved is true when inventory already holds a reservation for it (saga orders)
+public record OrderPlacedEvent(String orderNumber, List<LineItem> lineItems, boolean stockReserved) {
+
+    public record LineItem(String skuCode, Integer quantity) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.huzaifaproject.orderservice.event;
+
+import com.huzaifaproject.orderservice.model.OrderStatus;
+
+// Raised inside the saga transaction and broadcast to every order-service instance once it commits
+public record OrderStatusChangedEvent(String orderNumber, OrderStatus status) {
+}
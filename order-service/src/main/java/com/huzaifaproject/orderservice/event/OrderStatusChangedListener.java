@@ -0,0 +1,34 @@
+package com.huzaifaproject.orderservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.orderservice.service.OrderStatusNotifier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+// Every instance reads all partitions so each can reach the SSE subscribers it holds
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusChangedListener {
+
+    private final OrderStatusNotifier orderStatusNotifier;
+    private final ObjectMapper objectMapper;
+
+    // Partitions are assigned directly instead of through a per-start random consumer group, which left an
+    // abandoned group behind on every restart; subscribers only care about changes from now on
+    @KafkaListener(topicPartitions = @TopicPartition(
+            topic = "${app.topics.order-status-changed:order-status-changed}", partitions = "*"),
+            properties = "auto.offset.reset=latest")
+    public void handleStatusChanged(String message) {
+        try {
+            OrderStatusChangedEvent event = objectMapper.readValue(message, OrderStatusChangedEvent.class);
+            orderStatusNotifier.publish(event.orderNumber(), event.status());
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring malformed order status message: {}", message);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.huzaifaproject.orderservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Broadcasts committed status changes so whichever instance holds the SSE subscriber can push them
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusEventPublisher {
+
+    @Value("${app.topics.order-status-changed:order-status-changed}")
+    private String orderStatusChangedTopic;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Only a notification: losing one leaves the status endpoint correct, so it does not go through the outbox
+    @TransactionalEventListener
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        try {
+            kafkaTemplate.send(orderStatusChangedTopic, event.orderNumber(), objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException ex) {
+            log.error("Failed to serialize status change of order {}: {}", event.orderNumber(), ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.huzaifaproject.orderservice.event;
+
+// Stock level published by inventory-service whenever a SKU's quantity changes
+public record StockChangedEvent(String skuCode, Integer quantity) {
+}
@@ -0,0 +1,35 @@
+package com.huzaifaproject.orderservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.orderservice.client.InventoryClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+// Keeps the inventory near-cache in line with stock changes made in inventory-service
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockChangedListener {
+
+    private final InventoryClient inventoryClient;
+    private final ObjectMapper objectMapper;
+
+    // Every order-service instance holds its own cache, so each one reads all partitions itself. Partitions are
+    // assigned directly, without a consumer group: nothing is committed or left behind on restart, and each start
+    // reads from the latest offset. Partitions added to the topic later are picked up on the next start
+    @KafkaListener(topicPartitions = @TopicPartition(
+            topic = "${app.topics.inventory-stock-changed:inventory-stock-changed}", partitions = "*"),
+            properties = "auto.offset.reset=latest")
+    public void handleStockChanged(String message) {
+        try {
+            StockChangedEvent event = objectMapper.readValue(message, StockChangedEvent.class);
+            inventoryClient.onStockChanged(event.skuCode(), event.quantity());
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring malformed stock-changed message: {}", message);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.huzaifaproject.orderservice.exception;
+
+// Raised when a downstream call is shed because its adaptive concurrency limit is exhausted
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.huzaifaproject.orderservice.exception;
+
+// Raised when a caller stops waiting for a downstream answer; the call itself may still complete later
+public class DownstreamTimeoutException extends RuntimeException {
+
+    public DownstreamTimeoutException(String message) {
+        super(message);
+    }
+}
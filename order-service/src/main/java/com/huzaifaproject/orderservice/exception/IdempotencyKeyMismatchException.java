@@ -0,0 +1,9 @@
+package com.huzaifaproject.orderservice.exception;
+
+// Raised when an Idempotency-Key is reused with a different request body
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
@@ -4,26 +4,40 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "t_orders")
+@Table(name = "t_orders", indexes = {
+        @Index(name = "uk_orders_order_number", columnList = "order_number", unique = true),
+        // Back the (orderDate, id) keyset pagination of the admin and history endpoints
+        @Index(name = "idx_orders_order_date_id", columnList = "order_date, id"),
+        @Index(name = "idx_orders_username_order_date_id", columnList = "username, order_date, id"),
+        // Lets the saga recovery sweep find orders left too long in one status
+        @Index(name = "idx_orders_status_status_changed_at", columnList = "status, status_changed_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
+    // Pooled sequence ids keep JDBC insert batching enabled (IDENTITY forces one round trip per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "t_orders_seq", allocationSize = 50)
     private Long id;
     private String orderNumber;
     private String username; // User who placed the order
     private LocalDateTime orderDate;
     
+    // Non-nullable join column: the FK is written in the line item INSERT, with no join table and no follow-up UPDATE
     @OneToMany(cascade = CascadeType.ALL)
+    @JoinColumn(name = "order_id", nullable = false, updatable = false)
+    @BatchSize(size = 100)
     private List<OrderLineItems> orderLineItemsList;
     
     // Delivery Details
@@ -33,4 +47,14 @@ public class Order {
     
     @Enumerated(EnumType.STRING)
     private PaymentMethod paymentMethod;
+
+    // Orders placed before the saga existed have no status and are treated as COMPLETED
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    // When inventory's answer moved the order out of PENDING, or the recovery sweep last picked it up
+    private Instant statusChangedAt;
+
+    // When inventory-service gives the held stock back unless the order is placed first; null when not reserved
+    private Instant reservationExpiresAt;
 }
@@ -9,14 +9,17 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "t_order_line_items")
+@Table(name = "t_order_line_items", indexes = {
+        @Index(name = "idx_order_line_items_order_id", columnList = "order_id")
+})
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class OrderLineItems {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_line_items_seq")
+    @SequenceGenerator(name = "order_line_items_seq", sequenceName = "t_order_line_items_seq", allocationSize = 50)
     private Long id;
     private String skuCode;
     private BigDecimal price;
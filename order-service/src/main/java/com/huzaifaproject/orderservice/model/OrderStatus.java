@@ -0,0 +1,16 @@
+package com.huzaifaproject.orderservice.model;
+
+public enum OrderStatus {
+    // Accepted asynchronously, waiting for inventory-service to reserve stock
+    PENDING,
+    INVENTORY_RESERVED,
+    COMPLETED,
+    // Inventory could not reserve the requested stock
+    REJECTED,
+    // A later step failed and the reservation was compensated
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == REJECTED || this == FAILED;
+    }
+}
@@ -0,0 +1,30 @@
+package com.huzaifaproject.orderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Kafka message written in the same transaction as the order and relayed to the broker afterwards
+@Entity
+@Table(name = "t_order_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "t_order_outbox_seq", allocationSize = 50)
+    private Long id;
+    private String topic;
+    private String messageKey;
+    @Column(columnDefinition = "text")
+    private String payload;
+    private Instant createdAt;
+    // Set while a relay is publishing the row; a relay that dies mid-send leaves it to expire
+    private Instant claimedUntil;
+}
@@ -1,11 +1,76 @@
 package com.huzaifaproject.orderservice.repository;
 
 import com.huzaifaproject.orderservice.model.Order;
+import com.huzaifaproject.orderservice.model.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUsernameOrderByOrderDateDesc(String username);
-    List<Order> findAllByOrderByOrderDateDesc();
+
+    Optional<Order> findByOrderNumber(String orderNumber);
+
+    // Compare-and-set on the status; returns 0 when another delivery already moved the order on
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to WHERE o.orderNumber = :orderNumber AND o.status = :from")
+    int transitionStatus(@Param("orderNumber") String orderNumber, @Param("from") OrderStatus from,
+                         @Param("to") OrderStatus to);
+
+    // Moves the order out of PENDING on inventory's answer, stamping when and until when the stock is held
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.statusChangedAt = :now, o.reservationExpiresAt = :expiresAt "
+            + "WHERE o.orderNumber = :orderNumber AND o.status = :from")
+    int recordReservationAnswer(@Param("orderNumber") String orderNumber, @Param("from") OrderStatus from,
+                                @Param("to") OrderStatus to, @Param("expiresAt") Instant expiresAt,
+                                @Param("now") Instant now);
+
+    // Orders that entered the status before the cutoff (or before the stamp existed), oldest first
+    @Query("SELECT o.orderNumber FROM Order o WHERE o.status = :status "
+            + "AND (o.statusChangedAt < :before OR o.statusChangedAt IS NULL) ORDER BY o.statusChangedAt NULLS FIRST")
+    List<String> findOrderNumbersStuckIn(@Param("status") OrderStatus status, @Param("before") Instant before,
+                                         Pageable pageable);
+
+    // Restamps a stuck order so that only one sweeping instance picks it up; returns 0 when another one already did
+    @Modifying
+    @Query("UPDATE Order o SET o.statusChangedAt = :now WHERE o.orderNumber = :orderNumber AND o.status = :status "
+            + "AND (o.statusChangedAt < :before OR o.statusChangedAt IS NULL)")
+    int claimStuckOrder(@Param("orderNumber") String orderNumber, @Param("status") OrderStatus status,
+                        @Param("before") Instant before, @Param("now") Instant now);
+
+    // Keyset pages ordered by (orderDate, id) descending; only Pageable's size is used, never an offset
+    @Query("SELECT o FROM Order o ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findFirstPage(Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id) "
+            + "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findPageAfter(@Param("orderDate") LocalDateTime orderDate, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.username = :username ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findFirstPageByUsername(@Param("username") String username, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.username = :username "
+            + "AND (o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id)) "
+            + "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findPageAfterByUsername(@Param("username") String username, @Param("orderDate") LocalDateTime orderDate,
+                                        @Param("id") Long id, Pageable pageable);
+
+    // Server-side cursor over the ids in [from, to); the orders themselves are loaded in chunks
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o.id FROM Order o WHERE o.orderDate >= :from AND o.orderDate < :to ORDER BY o.orderDate, o.id")
+    Stream<Long> streamIdsByOrderDateRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderLineItemsList WHERE o.id IN :ids ORDER BY o.orderDate, o.id")
+    List<Order> findAllWithLineItemsByIdIn(@Param("ids") Collection<Long> ids);
 }
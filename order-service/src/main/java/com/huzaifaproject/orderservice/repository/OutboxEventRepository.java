@@ -0,0 +1,30 @@
+package com.huzaifaproject.orderservice.repository;
+
+import com.huzaifaproject.orderservice.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Marks the next unclaimed rows as in flight and returns them. Rows locked by another relay instance are
+    // skipped instead of waited on, and the row locks end with the short claiming transaction
+    @Query(value = """
+            UPDATE t_order_outbox SET claimed_until = :claimedUntil
+            WHERE id IN (SELECT id FROM t_order_outbox
+                         WHERE claimed_until IS NULL OR claimed_until < :now
+                         ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED)
+            RETURNING *""", nativeQuery = true)
+    List<OutboxEvent> claimNextBatch(@Param("limit") int limit, @Param("now") Instant now,
+                                     @Param("claimedUntil") Instant claimedUntil);
+
+    // Hands rows that were not acknowledged back to the next drain
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = null WHERE e.id IN :ids")
+    void releaseClaims(@Param("ids") Collection<Long> ids);
+}
@@ -1,29 +1,57 @@
 package com.huzaifaproject.orderservice.security;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.huzaifaproject.orderservice.exception.OrderProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Base64;
 
 /**
  * Extracts the username from a Keycloak-issued JWT token present in the current request.
+ * The signature is verified by the api-gateway; here the payload is only read, and each token is parsed once
+ * and then served from a cache until the token's own exp.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtUsernameResolver {
 
     private static final String BEARER_PREFIX = "Bearer ";
 
-    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    // SHA-256 of the token -> resolved principal, so raw bearer tokens are never kept on the heap
+    private final Cache<ByteBuffer, ResolvedPrincipal> principals;
+
+    public JwtUsernameResolver(ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.jwt.cache.max-size:10000}") long maxSize,
+                               @Value("${app.jwt.cache.max-ttl-seconds:300}") long maxTtlSeconds) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(Duration.ofSeconds(maxTtlSeconds).toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "jwt-principals");
+    }
 
     public String resolveUsername(HttpServletRequest request) {
         if (request == null) {
@@ -39,35 +67,120 @@ public class JwtUsernameResolver {
     }
 
     public String extractUsername(String token) {
+        ByteBuffer tokenHash = sha256(token);
+        ResolvedPrincipal cached = principals.getIfPresent(tokenHash);
+        if (cached != null) {
+            return cached.username();
+        }
+
+        ResolvedPrincipal resolved = parseToken(token);
+        principals.put(tokenHash, resolved);
+        return resolved.username();
+    }
+
+    private ResolvedPrincipal parseToken(String token) {
+        int payloadStart = token.indexOf('.');
+        int payloadEnd = payloadStart < 0 ? -1 : token.indexOf('.', payloadStart + 1);
+        if (payloadEnd < 0) {
+            throw new OrderProcessingException("JWT token structure is invalid");
+        }
+
         try {
-            String[] tokenParts = token.split("\\.");
-            if (tokenParts.length < 2) {
-                throw new OrderProcessingException("JWT token structure is invalid");
-            }
+            byte[] decodedPayload = Base64.getUrlDecoder().decode(token.substring(payloadStart + 1, payloadEnd));
+            return readClaims(decodedPayload);
+        } catch (IllegalArgumentException | IOException ex) {
+            log.error("Failed to parse JWT token: {}", ex.getMessage());
+            throw new OrderProcessingException("Unable to parse JWT token");
+        }
+    }
 
-            byte[] decodedPayload = Base64.getUrlDecoder().decode(tokenParts[1]);
-            JsonNode payload = objectMapper.readTree(decodedPayload);
+    // Streams over the payload without building a tree; stops once preferred_username and exp are both known
+    private ResolvedPrincipal readClaims(byte[] payload) throws IOException {
+        String preferredUsername = null;
+        String email = null;
+        String subject = null;
+        long expiresAtEpochSecond = -1;
 
-            if (payload.hasNonNull("preferred_username")) {
-                String resolved = payload.get("preferred_username").asText();
-                log.debug("Resolved preferred_username claim: {}", resolved);
-                return resolved;
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new OrderProcessingException("Unable to parse JWT token");
             }
-            if (payload.hasNonNull("email")) {
-                String resolved = payload.get("email").asText();
-                log.debug("Resolved email claim as username: {}", resolved);
-                return resolved;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String claim = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value.isStructStart()) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (claim) {
+                    case "preferred_username" -> preferredUsername = parser.getText();
+                    case "email" -> email = parser.getText();
+                    case "sub" -> subject = parser.getText();
+                    case "exp" -> expiresAtEpochSecond = value.isNumeric() ? parser.getLongValue() : -1;
+                    default -> {
+                        // other claims are not needed
+                    }
+                }
+                if (preferredUsername != null && expiresAtEpochSecond >= 0) {
+                    break;
+                }
             }
-            if (payload.hasNonNull("sub")) {
-                String resolved = payload.get("sub").asText();
-                log.debug("Resolved sub claim as username: {}", resolved);
-                return resolved;
+        }
+
+        if (preferredUsername != null) {
+            log.debug("Resolved preferred_username claim: {}", preferredUsername);
+            return new ResolvedPrincipal(preferredUsername, expiresAtEpochSecond);
+        }
+        if (email != null) {
+            log.debug("Resolved email claim as username: {}", email);
+            return new ResolvedPrincipal(email, expiresAtEpochSecond);
+        }
+        if (subject != null) {
+            log.debug("Resolved sub claim as username: {}", subject);
+            return new ResolvedPrincipal(subject, expiresAtEpochSecond);
+        }
+
+        throw new OrderProcessingException("Username claim not found in JWT token");
+    }
+
+    private static ByteBuffer sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    // expiresAtEpochSecond is -1 when the token carries no exp claim
+    private record ResolvedPrincipal(String username, long expiresAtEpochSecond) {
+    }
+
+    // Keeps each principal until its token expires, capped at the configured max TTL
+    private record TokenExpiry(long maxTtlNanos) implements Expiry<ByteBuffer, ResolvedPrincipal> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, ResolvedPrincipal value, long currentTime) {
+            if (value.expiresAtEpochSecond() < 0) {
+                return maxTtlNanos;
             }
+            long remainingMillis = value.expiresAtEpochSecond() * 1000 - System.currentTimeMillis();
+            return Math.max(0, Math.min(maxTtlNanos, Duration.ofMillis(remainingMillis).toNanos()));
+        }
 
-            throw new OrderProcessingException("Username claim not found in JWT token");
-        } catch (IllegalArgumentException | IOException ex) {
-            log.error("Failed to parse JWT token: {}", ex.getMessage());
-            throw new OrderProcessingException("Unable to parse JWT token");
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, ResolvedPrincipal value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, ResolvedPrincipal value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
         }
     }
 }
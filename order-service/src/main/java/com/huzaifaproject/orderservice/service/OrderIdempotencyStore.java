@@ -0,0 +1,86 @@
+package com.huzaifaproject.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.huzaifaproject.orderservice.exception.IdempotencyKeyMismatchException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Remembers order placements by Idempotency-Key so a retried request returns the original order number.
+ * A duplicate arriving while the first attempt is still running waits for that attempt instead of re-executing it.
+ * The key is bound to a hash of the request body; reusing it for a different body is rejected.
+ */
+@Component
+public class OrderIdempotencyStore {
+
+    private final ObjectMapper objectMapper;
+    // username:key -> in-flight or completed placement; failed placements are dropped so they can be retried
+    private final Cache<String, Placement> placements;
+
+    public OrderIdempotencyStore(ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.orders.idempotency.ttl-minutes:60}") long ttlMinutes,
+                                 @Value("${app.orders.idempotency.max-size:100000}") long maxSize) {
+        this.objectMapper = objectMapper;
+        this.placements = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, placements, "order-idempotency");
+    }
+
+    public CompletableFuture<String> placeOnce(String username, String idempotencyKey, Object request,
+                                               Supplier<CompletableFuture<String>> placement) {
+        // Keys are scoped per user so two customers can never collide on the same key
+        String key = username + ":" + idempotencyKey;
+        Placement candidate = new Placement(hash(request), new CompletableFuture<>());
+        Placement existing = placements.asMap().putIfAbsent(key, candidate);
+        if (existing != null) {
+            if (!MessageDigest.isEqual(existing.requestHash(), candidate.requestHash())) {
+                throw new IdempotencyKeyMismatchException(
+                        "Idempotency-Key was already used with a different request body");
+            }
+            // Hand out a copy: a caller timing out and cancelling must not cancel the attempt other callers wait on
+            return existing.result().copy();
+        }
+
+        CompletableFuture<String> attempt;
+        try {
+            attempt = placement.get();
+        } catch (RuntimeException ex) {
+            attempt = CompletableFuture.failedFuture(ex);
+        }
+        attempt.whenComplete((orderNumber, failure) -> {
+            if (failure != null) {
+                placements.asMap().remove(key, candidate);
+                candidate.result().completeExceptionally(failure);
+            } else {
+                candidate.result().complete(orderNumber);
+            }
+        });
+        return candidate.result().copy();
+    }
+
+    private byte[] hash(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Unable to hash order request", ex);
+        }
+    }
+
+    private record Placement(byte[] requestHash, CompletableFuture<String> result) {
+    }
+}
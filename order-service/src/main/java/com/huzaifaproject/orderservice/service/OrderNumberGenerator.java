@@ -0,0 +1,9 @@
+package com.huzaifaproject.orderservice.service;
+
+/**
+ * Produces the public order number assigned when an order is placed.
+ */
+public interface OrderNumberGenerator {
+
+    String nextOrderNumber();
+}
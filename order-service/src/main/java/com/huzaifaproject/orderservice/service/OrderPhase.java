@@ -0,0 +1,20 @@
+package com.huzaifaproject.orderservice.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// Timed phases of order placement, each tagged with the downstream it waits on
+@Getter
+@RequiredArgsConstructor
+public enum OrderPhase {
+
+    JWT_RESOLUTION("jwt-resolution", "local"),
+    INVENTORY_CHECK("inventory-check", "inventory-service"),
+    PERSIST("persist", "postgres"),
+    EVENT_PUBLISH("event-publish", "outbox"),
+    PRODUCT_UPDATE("product-update", "product-service"),
+    PRODUCT_RESTORE("product-restore", "product-service");
+
+    private final String phaseName;
+    private final String downstream;
+}
@@ -0,0 +1,74 @@
+package com.huzaifaproject.orderservice.service;
+
+import com.huzaifaproject.orderservice.dto.BulkDecreaseQuantityResponse;
+import com.huzaifaproject.orderservice.exception.OrderProcessingException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Wraps each order placement phase in its own Observation, which becomes both a Zipkin span and
+ * an {@value #OBSERVATION_NAME} timer tagged with phase, downstream and outcome.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderPhaseObserver {
+
+    public static final String OBSERVATION_NAME = "order.placement.phase";
+    public static final String OUTCOME_SUCCESS = "success";
+    // A business refusal such as out of stock, kept apart from technical errors
+    public static final String OUTCOME_REJECTED = "rejected";
+    public static final String OUTCOME_ERROR = "error";
+    // Some lines of a bulk product update were applied and some were not
+    public static final String OUTCOME_PARTIAL = "partial";
+
+    private final ObservationRegistry observationRegistry;
+
+    public <T> T observe(OrderPhase phase, Supplier<T> work) {
+        return observe(phase, work, result -> OUTCOME_SUCCESS);
+    }
+
+    public void observe(OrderPhase phase, Runnable work) {
+        observe(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // outcome classifies a result that came back normally, e.g. a partially applied product update
+    public <T> T observe(OrderPhase phase, Supplier<T> work, Function<T, String> outcome) {
+        Observation observation = Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+                .contextualName("order " + phase.getPhaseName())
+                .lowCardinalityKeyValue("phase", phase.getPhaseName())
+                .lowCardinalityKeyValue("downstream", phase.getDownstream())
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            T result = work.get();
+            observation.lowCardinalityKeyValue("outcome", outcome.apply(result));
+            return result;
+        } catch (OrderProcessingException ex) {
+            observation.lowCardinalityKeyValue("outcome", OUTCOME_REJECTED);
+            throw ex;
+        } catch (RuntimeException ex) {
+            observation.lowCardinalityKeyValue("outcome", OUTCOME_ERROR);
+            observation.error(ex);
+            throw ex;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    public static String productUpdateOutcome(BulkDecreaseQuantityResponse response) {
+        if (response == null) {
+            return OUTCOME_ERROR;
+        }
+        if (response.getFailed() == 0) {
+            return OUTCOME_SUCCESS;
+        }
+        return response.getUpdated() == 0 ? OUTCOME_REJECTED : OUTCOME_PARTIAL;
+    }
+}
@@ -0,0 +1,26 @@
+package com.huzaifaproject.orderservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Completes or compensates orders whose saga stopped between the inventory reservation and the product step
+@Component
+@RequiredArgsConstructor
+public class OrderSagaRecoveryJob {
+
+    private final OrderSagaService orderSagaService;
+
+    @Value("${app.saga.recovery-batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.saga.recovery-interval-ms:30000}")
+    public void recoverStuckOrders() {
+        // Every order found is restamped, by this instance or another, so a full batch means more may be waiting
+        int found;
+        do {
+            found = orderSagaService.recoverStuckOrders(batchSize);
+        } while (found == batchSize);
+    }
+}
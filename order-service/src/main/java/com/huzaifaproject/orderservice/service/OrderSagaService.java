@@ -0,0 +1,226 @@
+package com.huzaifaproject.orderservice.service;
+
+import com.huzaifaproject.orderservice.client.ProductClient;
+import com.huzaifaproject.orderservice.dto.BulkDecreaseQuantityResponse;
+import com.huzaifaproject.orderservice.dto.OrderLineItemsDto;
+import com.huzaifaproject.orderservice.dto.OrderStatusResponse;
+import com.huzaifaproject.orderservice.event.InventoryReservationEvent;
+import com.huzaifaproject.orderservice.event.OrderOutbox;
+import com.huzaifaproject.orderservice.event.OrderStatusChangedEvent;
+import com.huzaifaproject.orderservice.exception.OrderNotFoundException;
+import com.huzaifaproject.orderservice.model.Order;
+import com.huzaifaproject.orderservice.model.OrderLineItems;
+import com.huzaifaproject.orderservice.model.OrderStatus;
+import com.huzaifaproject.orderservice.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Steps of the choreographed order saga that run in order-service:
+ * PENDING -> (inventory reserved) -> INVENTORY_RESERVED -> (product stock decreased) -> COMPLETED,
+ * with REJECTED when inventory says no and FAILED, plus an inventory release, when the product step fails.
+ * Orders left INVENTORY_RESERVED past a deadline are resumed by {@link OrderSagaRecoveryJob}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSagaService {
+
+    private final OrderRepository orderRepository;
+    private final ProductClient productClient;
+    private final OrderOutbox orderOutbox;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderPhaseObserver orderPhaseObserver;
+    private final TransactionTemplate transactionTemplate;
+
+    // How long a reservation must still be held after the product step, for the order-placed event to reach
+    // inventory-service through the outbox before the reservation's expiry gives its stock back
+    @Value("${app.saga.reservation-margin-ms:60000}")
+    private long reservationMarginMs;
+
+    // How long an order may stay INVENTORY_RESERVED before the recovery sweep resumes it; must exceed the time the
+    // product step can take, or the sweep races an order that is still being finished
+    @Value("${app.saga.recovery-deadline-ms:300000}")
+    private long recoveryDeadlineMs;
+
+    // The product-service call runs between two short transactions, never inside one: a redelivery while it is in
+    // flight finds the order already INVENTORY_RESERVED and leaves it to this call or to the recovery sweep
+    public void handleInventoryReservation(InventoryReservationEvent event) {
+        List<OrderLineItemsDto> reservedItems = transactionTemplate.execute(status -> recordReservation(event));
+        if (reservedItems != null) {
+            finishProductStep(event.orderNumber(), reservedItems, event.expiresAt());
+        }
+    }
+
+    // Resumes orders left INVENTORY_RESERVED past the deadline, e.g. by a crash between the product step and
+    // completeOrFail or a failed product call; returns how many stuck orders were found
+    public int recoverStuckOrders(int batchSize) {
+        Instant stuckBefore = Instant.now().minusMillis(recoveryDeadlineMs);
+        List<String> orderNumbers = orderRepository.findOrderNumbersStuckIn(OrderStatus.INVENTORY_RESERVED,
+                stuckBefore, PageRequest.ofSize(batchSize));
+        for (String orderNumber : orderNumbers) {
+            try {
+                ProductStep step = transactionTemplate.execute(status -> claimStuckOrder(orderNumber, stuckBefore));
+                if (step != null) {
+                    log.warn("Resuming order {}, INVENTORY_RESERVED since before {}", orderNumber, stuckBefore);
+                    finishProductStep(orderNumber, step.items(), step.reservationExpiresAt());
+                }
+            } catch (RuntimeException e) {
+                // The claim restamped the order, so it is retried once the deadline passes again
+                log.error("Failed to resume order {}: {}", orderNumber, e.getMessage());
+            }
+        }
+        return orderNumbers.size();
+    }
+
+    private ProductStep claimStuckOrder(String orderNumber, Instant stuckBefore) {
+        if (orderRepository.claimStuckOrder(orderNumber, OrderStatus.INVENTORY_RESERVED, stuckBefore,
+                Instant.now()) == 0) {
+            return null;
+        }
+        return orderRepository.findByOrderNumber(orderNumber)
+                .map(order -> new ProductStep(stockItems(order), order.getReservationExpiresAt()))
+                .orElse(null);
+    }
+
+    // Safe to run more than once for an order: product-service applies the decrease keyed by the order number at most
+    // once, and the restore only undoes a decrease that was applied
+    private void finishProductStep(String orderNumber, List<OrderLineItemsDto> items, Instant reservationExpiresAt) {
+        boolean stockDecreased = reservationHeld(orderNumber, reservationExpiresAt)
+                && decreaseProductStock(orderNumber, items);
+        if (stockDecreased && !reservationHeld(orderNumber, reservationExpiresAt)) {
+            // The product step outlasted the reservation: undo it and fail rather than complete on released stock
+            stockDecreased = false;
+        }
+        if (!stockDecreased) {
+            // Also covers lines taken by a partial decrease, or by an earlier attempt that never got to complete
+            restoreProductStock(orderNumber, items);
+        }
+        boolean completed = stockDecreased;
+        transactionTemplate.executeWithoutResult(status -> completeOrFail(orderNumber, completed));
+    }
+
+    private boolean reservationHeld(String orderNumber, Instant reservationExpiresAt) {
+        if (reservationExpiresAt == null
+                || Instant.now().plusMillis(reservationMarginMs).isBefore(reservationExpiresAt)) {
+            return true;
+        }
+        log.warn("Reservation of order {} lapses at {}, too soon to complete the order", orderNumber,
+                reservationExpiresAt);
+        return false;
+    }
+
+    // Returns the line items to take from product stock, or null when there is nothing more to do
+    private List<OrderLineItemsDto> recordReservation(InventoryReservationEvent event) {
+        Order order = orderRepository.findByOrderNumber(event.orderNumber()).orElse(null);
+        if (order == null) {
+            log.warn("Received inventory reservation for unknown order {}", event.orderNumber());
+            return null;
+        }
+
+        OrderStatus next = event.reserved() ? OrderStatus.INVENTORY_RESERVED : OrderStatus.REJECTED;
+        // Kafka may redeliver; only the delivery that moves the order out of PENDING acts on the answer
+        if (orderRepository.recordReservationAnswer(order.getOrderNumber(), OrderStatus.PENDING, next,
+                event.reserved() ? event.expiresAt() : null, Instant.now()) == 0) {
+            if (order.getStatus() == OrderStatus.INVENTORY_RESERVED) {
+                log.info("Reservation of order {} redelivered while INVENTORY_RESERVED; the product step is left to "
+                        + "the first delivery or the recovery sweep", order.getOrderNumber());
+            } else {
+                log.debug("Order {} is already {}, ignoring reservation answer", order.getOrderNumber(), order.getStatus());
+            }
+            return null;
+        }
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getOrderNumber(), next));
+
+        if (!event.reserved()) {
+            log.info("Inventory rejected order {}: {}", order.getOrderNumber(), event.reason());
+            return null;
+        }
+        return stockItems(order);
+    }
+
+    // One line per SKU: product-service applies an idempotent decrease to each product once
+    private static List<OrderLineItemsDto> stockItems(Order order) {
+        Map<String, OrderLineItemsDto> itemsBySkuCode = new LinkedHashMap<>();
+        for (OrderLineItems item : order.getOrderLineItemsList()) {
+            itemsBySkuCode.merge(item.getSkuCode(),
+                    new OrderLineItemsDto(null, item.getSkuCode(), item.getPrice(), item.getQuantity()),
+                    (first, more) -> new OrderLineItemsDto(null, first.getSkuCode(), first.getPrice(),
+                            first.getQuantity() + more.getQuantity()));
+        }
+        return List.copyOf(itemsBySkuCode.values());
+    }
+
+    // Compare-and-set from INVENTORY_RESERVED: an order another attempt already finished keeps its status, and its
+    // outbox events are not written a second time
+    private void completeOrFail(String orderNumber, boolean stockDecreased) {
+        OrderStatus next = stockDecreased ? OrderStatus.COMPLETED : OrderStatus.FAILED;
+        if (orderRepository.transitionStatus(orderNumber, OrderStatus.INVENTORY_RESERVED, next) == 0) {
+            log.warn("Order {} was finished by another attempt, not moving it to {}", orderNumber, next);
+            return;
+        }
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderNumber, next));
+        if (stockDecreased) {
+            Order order = orderRepository.findByOrderNumber(orderNumber)
+                    .orElseThrow(() -> new OrderNotFoundException("Order not found with orderNumber: " + orderNumber));
+            // Inventory already holds the stock; the event makes its reservation final
+            orderOutbox.orderPlaced(order, true);
+        } else {
+            // Compensate the inventory step so the reserved stock becomes available again
+            orderOutbox.inventoryReleased(orderNumber);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public OrderStatusResponse getStatus(String orderNumber, String username) {
+        Order order = orderRepository.findByOrderNumber(orderNumber)
+                .filter(found -> username.equals(found.getUsername()))
+                .orElseThrow(() -> new OrderNotFoundException("Order not found with orderNumber: " + orderNumber));
+        OrderStatus status = order.getStatus() == null ? OrderStatus.COMPLETED : order.getStatus();
+        return new OrderStatusResponse(order.getOrderNumber(), status);
+    }
+
+    // Returns false when any line could not be decreased; the caller then undoes the lines that were
+    private boolean decreaseProductStock(String orderNumber, List<OrderLineItemsDto> items) {
+        BulkDecreaseQuantityResponse response;
+        try {
+            response = orderPhaseObserver.observe(OrderPhase.PRODUCT_UPDATE,
+                    () -> productClient.decreaseQuantities(orderNumber, items), OrderPhaseObserver::productUpdateOutcome);
+        } catch (Exception e) {
+            log.error("Failed to decrease product stock for order {}: {}", orderNumber, e.getMessage());
+            return false;
+        }
+        if (response == null) {
+            return false;
+        }
+        if (response.getFailed() > 0) {
+            log.info("Product stock could not be decreased for {} line items of order {}",
+                    response.getFailed(), orderNumber);
+        }
+        return response.getFailed() == 0;
+    }
+
+    private void restoreProductStock(String orderNumber, List<OrderLineItemsDto> items) {
+        try {
+            orderPhaseObserver.observe(OrderPhase.PRODUCT_RESTORE,
+                    () -> productClient.increaseQuantities(orderNumber, items), OrderPhaseObserver::productUpdateOutcome);
+        } catch (Exception e) {
+            log.error("Failed to restore product stock for order {}, manual correction needed: {}",
+                    orderNumber, e.getMessage());
+        }
+    }
+
+    private record ProductStep(List<OrderLineItemsDto> items, Instant reservationExpiresAt) {
+    }
+}
@@ -1,25 +1,46 @@
 package com.huzaifaproject.orderservice.service;
 
+import com.huzaifaproject.orderservice.client.InventoryClient;
+import com.huzaifaproject.orderservice.client.ProductClient;
+import com.huzaifaproject.orderservice.dto.BatchOrderResult;
+import com.huzaifaproject.orderservice.dto.BatchOrderStatus;
+import com.huzaifaproject.orderservice.dto.BulkDecreaseQuantityResponse;
+import com.huzaifaproject.orderservice.dto.DecreaseQuantityResult;
 import com.huzaifaproject.orderservice.dto.InventoryResponse;
+import com.huzaifaproject.orderservice.dto.OrderCursor;
 import com.huzaifaproject.orderservice.dto.OrderLineItemsDto;
+import com.huzaifaproject.orderservice.dto.OrderPage;
 import com.huzaifaproject.orderservice.dto.OrderRequest;
 import com.huzaifaproject.orderservice.dto.OrderResponse;
-import com.huzaifaproject.orderservice.event.OrderEventProducer;
+import com.huzaifaproject.orderservice.dto.OrderStatusResponse;
+import com.huzaifaproject.orderservice.event.OrderOutbox;
 import com.huzaifaproject.orderservice.model.Order;
 import com.huzaifaproject.orderservice.model.OrderLineItems;
+import com.huzaifaproject.orderservice.model.OrderStatus;
 import com.huzaifaproject.orderservice.repository.OrderRepository;
 import com.huzaifaproject.orderservice.exception.OrderProcessingException;
-import io.micrometer.observation.Observation;
-import io.micrometer.observation.ObservationRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.util.StringUtils;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -27,98 +48,373 @@ import java.util.UUID;
 @Slf4j
 public class OrderService {
 
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
     private final OrderRepository orderRepository;
-    private final WebClient.Builder webClientBuilder;
-    private final ObservationRegistry observationRegistry;
-    // Publishes order updates as basic Kafka messages
-    private final OrderEventProducer orderEventProducer;
+    private final InventoryClient inventoryClient;
+    // Times each placement phase separately for the latency breakdown
+    private final OrderPhaseObserver orderPhaseObserver;
+    // Records order events for the outbox relay to publish after commit
+    private final OrderOutbox orderOutbox;
+    private final ProductClient productClient;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final OrderNumberGenerator orderNumberGenerator;
 
-    public String placeOrder(OrderRequest orderRequest, String username) {
-        Order order = new Order();
-        order.setOrderNumber(UUID.randomUUID().toString());
-        order.setOrderDate(LocalDateTime.now());
-        order.setUsername(username);
-        log.info("Creating order for user: {}", username);
+    @Value("${app.orders.page.default-size:20}")
+    private int defaultPageSize;
 
-        List<OrderLineItems> orderLineItems = orderRequest.getOrderLineItemsDtoList()
-                .stream()
-                .map(this::mapToDto)
-                .toList();
+    @Value("${app.orders.page.max-size:100}")
+    private int maxPageSize;
 
-        order.setOrderLineItemsList(orderLineItems);
-        
-        // Set delivery details
-        order.setDeliveryAddress(orderRequest.getDeliveryAddress());
-        order.setPhoneNumber(orderRequest.getPhoneNumber());
-        order.setEmail(orderRequest.getEmail());
-        order.setPaymentMethod(orderRequest.getPaymentMethod());
+    public String placeOrder(OrderRequest orderRequest, String username) {
+        log.info("Creating order for user: {}", username);
+        Order order = buildOrder(orderRequest, username);
 
         List<String> skuCodes = order.getOrderLineItemsList().stream()
                 .map(OrderLineItems::getSkuCode)
                 .toList();
 
         // Call Inventory Service, and place order if product is in stock
-        Observation inventoryServiceObservation = Observation.createNotStarted("inventory-service-lookup",
-                this.observationRegistry);
-        inventoryServiceObservation.lowCardinalityKeyValue("call", "inventory-service");
-        return inventoryServiceObservation.observe(() -> {
-            InventoryResponse[] inventoryResponseArray = webClientBuilder.build().get()
-                    .uri("http://inventory-service/api/inventory",
-                            uriBuilder -> uriBuilder.queryParam("skuCode", skuCodes).build())
-                    .retrieve()
-                    .bodyToMono(InventoryResponse[].class)
-                    .block();
-
-            boolean allProductsInStock = Arrays.stream(inventoryResponseArray)
+        orderPhaseObserver.observe(OrderPhase.INVENTORY_CHECK, () -> {
+            boolean allProductsInStock = inventoryClient.checkStock(skuCodes).stream()
                     .allMatch(InventoryResponse::isInStock);
 
             if (!allProductsInStock) {
                 throw new OrderProcessingException("One or more products are out of stock, please try again later");
             }
+        });
 
-            orderRepository.save(order);
+        persist(List.of(order));
 
-            // Sends the saved order number to Kafka
-            orderEventProducer.sendOrderPlaced(order.getOrderNumber());
+        // Queues the order-placed event in the same transaction as the order
+        orderPhaseObserver.observe(OrderPhase.EVENT_PUBLISH, () -> orderOutbox.orderPlaced(order, false));
 
-            // Update product quantities in Product Service
-            updateProductQuantities(orderRequest.getOrderLineItemsDtoList());
+        // Update product quantities in Product Service
+        updateProductQuantities(orderRequest.getOrderLineItemsDtoList());
 
-            return order.getOrderNumber();
-        });
+        return order.getOrderNumber();
     }
     
-    public List<OrderResponse> getAllOrders() {
-        return orderRepository.findAllByOrderByOrderDateDesc().stream()
-                .map(this::mapToOrderResponse)
-                .toList();
+    // Asynchronous placement: only persists a PENDING order; the saga continues from the order-created event
+    public OrderStatusResponse submitOrder(OrderRequest orderRequest, String username) {
+        if (!hasLineItems(orderRequest)) {
+            throw new OrderProcessingException("Order has no line items");
+        }
+        log.info("Accepting order asynchronously for user: {}", username);
+        Order order = buildOrder(orderRequest, username);
+        order.setStatus(OrderStatus.PENDING);
+        persist(List.of(order));
+        orderPhaseObserver.observe(OrderPhase.EVENT_PUBLISH, () -> orderOutbox.orderCreated(order));
+        return new OrderStatusResponse(order.getOrderNumber(), OrderStatus.PENDING);
     }
-    
-    public List<OrderResponse> getOrdersByUsername(String username) {
-        return orderRepository.findByUsernameOrderByOrderDateDesc(username).stream()
+
+    // Places many orders with one inventory lookup, one product-service call and batched inserts. Each order is
+    // accepted or rejected on its own, against the stock the orders before it in the batch left; the accepted orders
+    // are then inserted in this one transaction, so a database failure fails the whole batch
+    public List<BatchOrderResult> placeOrders(List<OrderRequest> orderRequests, String username) {
+        log.info("Creating batch of {} orders for user: {}", orderRequests.size(), username);
+        BatchOrderResult[] results = new BatchOrderResult[orderRequests.size()];
+
+        Set<String> skuCodes = new LinkedHashSet<>();
+        for (OrderRequest orderRequest : orderRequests) {
+            if (hasLineItems(orderRequest)) {
+                orderRequest.getOrderLineItemsDtoList().forEach(item -> skuCodes.add(item.getSkuCode()));
+            }
+        }
+
+        // The quantity inventory reports per SKU, drawn down by every order accepted from this batch. A SKU
+        // inventory-service does not report on is treated as out of stock, not as available
+        Map<String, Integer> remainingStock = new HashMap<>();
+        if (!skuCodes.isEmpty()) {
+            orderPhaseObserver.observe(OrderPhase.INVENTORY_CHECK, () -> inventoryClient.checkStock(List.copyOf(skuCodes))
+                    .forEach(response -> remainingStock.put(response.getSkuCode(),
+                            response.isInStock() && response.getQuantity() != null ? response.getQuantity() : 0)));
+        }
+
+        List<Order> acceptedOrders = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (int i = 0; i < orderRequests.size(); i++) {
+            OrderRequest orderRequest = orderRequests.get(i);
+            if (!hasLineItems(orderRequest)) {
+                results[i] = rejected(i, "Order has no line items");
+                continue;
+            }
+            Map<String, Integer> requestedQuantities = requestedQuantities(orderRequest);
+            boolean allProductsInStock = requestedQuantities.entrySet().stream()
+                    .allMatch(requested -> requested.getValue() <= remainingStock.getOrDefault(requested.getKey(), 0));
+            if (!allProductsInStock) {
+                results[i] = rejected(i, "One or more products are out of stock, please try again later");
+                continue;
+            }
+            requestedQuantities.forEach((skuCode, quantity) -> remainingStock.merge(skuCode, -quantity, Integer::sum));
+
+            Order order = buildOrder(orderRequest, username);
+            acceptedOrders.add(order);
+            acceptedIndexes.add(i);
+            results[i] = BatchOrderResult.builder()
+                    .index(i)
+                    .orderNumber(order.getOrderNumber())
+                    .status(BatchOrderStatus.ACCEPTED)
+                    .build();
+        }
+
+        List<Order> placedOrders = takeProductStock(acceptedOrders, acceptedIndexes, orderRequests, results);
+        log.info("Accepted {} of {} orders in batch", placedOrders.size(), orderRequests.size());
+        return Arrays.asList(results);
+    }
+
+    // Decreases product stock for every accepted order with one call, rejects the orders product-service refused a
+    // line of and persists the rest; returns the orders that were placed
+    private List<Order> takeProductStock(List<Order> acceptedOrders, List<Integer> acceptedIndexes,
+                                         List<OrderRequest> orderRequests, BatchOrderResult[] results) {
+        if (acceptedOrders.isEmpty()) {
+            return acceptedOrders;
+        }
+        List<OrderLineItemsDto> acceptedItems = new ArrayList<>();
+        acceptedIndexes.forEach(i -> acceptedItems.addAll(orderRequests.get(i).getOrderLineItemsDtoList()));
+        List<DecreaseQuantityResult> lineResults = decreaseProductStock(acceptedItems);
+
+        List<Order> placedOrders = new ArrayList<>();
+        List<OrderLineItemsDto> takenItems = new ArrayList<>();
+        List<OrderLineItemsDto> returnedItems = new ArrayList<>();
+        int line = 0;
+        for (int o = 0; o < acceptedOrders.size(); o++) {
+            int index = acceptedIndexes.get(o);
+            List<OrderLineItemsDto> items = orderRequests.get(index).getOrderLineItemsDtoList();
+            // Results come back in request order, so each order's lines are a contiguous range
+            List<DecreaseQuantityResult> orderResults = lineResults == null ? null
+                    : lineResults.subList(line, line + items.size());
+            line += items.size();
+            if (orderResults == null || orderResults.stream().allMatch(DecreaseQuantityResult::isUpdated)) {
+                placedOrders.add(acceptedOrders.get(o));
+                takenItems.addAll(orderResults == null ? List.of() : items);
+                continue;
+            }
+            for (int i = 0; i < items.size(); i++) {
+                if (orderResults.get(i).isUpdated()) {
+                    returnedItems.add(items.get(i));
+                }
+            }
+            results[index] = rejected(index, refusalMessage(orderResults));
+        }
+        restoreProductStock(returnedItems);
+
+        if (!placedOrders.isEmpty()) {
+            try {
+                persist(placedOrders);
+            } catch (RuntimeException ex) {
+                restoreProductStock(takenItems);
+                throw ex;
+            }
+            orderPhaseObserver.observe(OrderPhase.EVENT_PUBLISH, () -> orderOutbox.ordersPlaced(placedOrders));
+        }
+        return placedOrders;
+    }
+
+    private static Map<String, Integer> requestedQuantities(OrderRequest orderRequest) {
+        Map<String, Integer> requestedQuantities = new HashMap<>();
+        for (OrderLineItemsDto item : orderRequest.getOrderLineItemsDtoList()) {
+            // product-service refuses a line without a positive quantity, which rejects the order there
+            requestedQuantities.merge(item.getSkuCode(), item.getQuantity() == null ? 0 : item.getQuantity(),
+                    Integer::sum);
+        }
+        return requestedQuantities;
+    }
+
+    @Transactional(readOnly = true)
+    public OrderPage getAllOrders(String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        // One row more than the page tells whether another page follows
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+        List<Order> orders;
+        if (StringUtils.hasText(cursor)) {
+            OrderCursor position = OrderCursor.decode(cursor);
+            orders = orderRepository.findPageAfter(position.orderDate(), position.id(), pageable);
+        } else {
+            orders = orderRepository.findFirstPage(pageable);
+        }
+        return toOrderPage(orders, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersByUsername(String username, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+        List<Order> orders;
+        if (StringUtils.hasText(cursor)) {
+            OrderCursor position = OrderCursor.decode(cursor);
+            orders = orderRepository.findPageAfterByUsername(username, position.orderDate(), position.id(), pageable);
+        } else {
+            orders = orderRepository.findFirstPageByUsername(username, pageable);
+        }
+        return toOrderPage(orders, pageSize);
+    }
+
+    public OrderPage getMyOrders(String username, String cursor, Integer size) {
+        return getOrdersByUsername(username, cursor, size);
+    }
+
+    // Writes one JSON order per line. Order ids come from a server-side cursor and each chunk of ids is loaded with
+    // its line items in one query, then cleared from the persistence context, so memory stays flat
+    @Transactional(readOnly = true)
+    public long exportOrders(LocalDateTime from, LocalDateTime to, OutputStream outputStream) throws IOException {
+        long exported = 0;
+        List<Long> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        try (Stream<Long> orderIds = orderRepository.streamIdsByOrderDateRange(from, to)) {
+            Iterator<Long> iterator = orderIds.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == EXPORT_CHUNK_SIZE || !iterator.hasNext()) {
+                    exported += exportChunk(chunk, outputStream);
+                    chunk.clear();
+                }
+            }
+        }
+        outputStream.flush();
+        log.info("Exported {} orders between {} and {}", exported, from, to);
+        return exported;
+    }
+
+    private int exportChunk(List<Long> orderIds, OutputStream outputStream) throws IOException {
+        List<Order> orders = orderRepository.findAllWithLineItemsByIdIn(orderIds);
+        for (Order order : orders) {
+            outputStream.write(objectMapper.writeValueAsBytes(mapToOrderResponse(order)));
+            outputStream.write('\n');
+        }
+        // Nothing is written back, so drop the chunk before loading the next one
+        entityManager.clear();
+        return orders.size();
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size < 1) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    // orders holds up to pageSize + 1 rows; the extra row only signals that there is a next page
+    private OrderPage toOrderPage(List<Order> orders, int pageSize) {
+        boolean hasNextPage = orders.size() > pageSize;
+        List<Order> page = hasNextPage ? orders.subList(0, pageSize) : orders;
+
+        // Line items of the whole page are initialised together thanks to @BatchSize on the collection
+        List<OrderResponse> responses = page.stream()
                 .map(this::mapToOrderResponse)
                 .toList();
+
+        String nextCursor = null;
+        if (hasNextPage) {
+            Order last = page.get(page.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        return new OrderPage(responses, nextCursor);
     }
-    
-    public List<OrderResponse> getMyOrders(String username) {
-        return getOrdersByUsername(username);
+
+    // Flushing inside the phase keeps the INSERTs from being hidden in the commit at the end of the request
+    private void persist(List<Order> orders) {
+        orderPhaseObserver.observe(OrderPhase.PERSIST, () -> {
+            orderRepository.saveAll(orders);
+            entityManager.flush();
+        });
     }
-    
+
+    // A line product-service refuses (e.g. NOT_ENOUGH_STOCK) fails the order, after its applied lines are put back
     private void updateProductQuantities(List<OrderLineItemsDto> orderItems) {
+        List<DecreaseQuantityResult> lineResults = decreaseProductStock(orderItems);
+        if (lineResults == null || lineResults.stream().allMatch(DecreaseQuantityResult::isUpdated)) {
+            return;
+        }
+        List<OrderLineItemsDto> appliedItems = new ArrayList<>();
+        for (int i = 0; i < orderItems.size(); i++) {
+            if (lineResults.get(i).isUpdated()) {
+                appliedItems.add(orderItems.get(i));
+            }
+        }
+        restoreProductStock(appliedItems);
+        throw new OrderProcessingException(refusalMessage(lineResults));
+    }
+
+    // Per-line results in request order, or null when product-service could not answer; the order is then kept, as
+    // inventory-service has already confirmed the stock
+    private List<DecreaseQuantityResult> decreaseProductStock(List<OrderLineItemsDto> items) {
         try {
-            for (OrderLineItemsDto item : orderItems) {
-                // Call Product Service to decrease quantity
-                webClientBuilder.build().post()
-                        .uri("http://product-service/api/product/decrease-quantity")
-                        .bodyValue(item)
-                        .retrieve()
-                        .bodyToMono(Void.class)
-                        .block();
+            // Call Product Service once for all the lines
+            BulkDecreaseQuantityResponse response = orderPhaseObserver.observe(OrderPhase.PRODUCT_UPDATE,
+                    () -> productClient.decreaseQuantities(items), OrderPhaseObserver::productUpdateOutcome);
+            if (response == null || response.getResults() == null || response.getResults().size() != items.size()) {
+                log.error("Unexpected product quantity response for {} line items: {}", items.size(), response);
+                return null;
+            }
+            for (DecreaseQuantityResult result : response.getResults()) {
+                if (!result.isUpdated()) {
+                    log.info("Product quantity not decreased for skuCode {}: {} {}",
+                            result.getSkuCode(), result.getStatus(), result.getMessage());
+                }
             }
+            return response.getResults();
         } catch (Exception e) {
             log.error("Failed to update product quantities: {}", e.getMessage());
-            // Don't fail the order, just log the error
+            return null;
+        }
+    }
+
+    private void restoreProductStock(List<OrderLineItemsDto> items) {
+        if (items.isEmpty()) {
+            return;
         }
+        try {
+            orderPhaseObserver.observe(OrderPhase.PRODUCT_RESTORE,
+                    () -> productClient.increaseQuantities(items), OrderPhaseObserver::productUpdateOutcome);
+        } catch (Exception e) {
+            log.error("Failed to restore product stock for {} line items, manual correction needed: {}",
+                    items.size(), e.getMessage());
+        }
+    }
+
+    private static String refusalMessage(List<DecreaseQuantityResult> lineResults) {
+        return lineResults.stream()
+                .filter(result -> !result.isUpdated())
+                .findFirst()
+                .map(result -> result.getMessage() != null ? result.getMessage()
+                        : result.getStatus() + " for skuCode: " + result.getSkuCode())
+                .orElse("Product stock could not be updated");
+    }
+
+    private Order buildOrder(OrderRequest orderRequest, String username) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
+        order.setOrderDate(LocalDateTime.now());
+        order.setUsername(username);
+        order.setStatus(OrderStatus.COMPLETED);
+
+        List<OrderLineItems> orderLineItems = orderRequest.getOrderLineItemsDtoList()
+                .stream()
+                .map(this::mapToDto)
+                .toList();
+
+        order.setOrderLineItemsList(orderLineItems);
+
+        // Set delivery details
+        order.setDeliveryAddress(orderRequest.getDeliveryAddress());
+        order.setPhoneNumber(orderRequest.getPhoneNumber());
+        order.setEmail(orderRequest.getEmail());
+        order.setPaymentMethod(orderRequest.getPaymentMethod());
+        return order;
+    }
+
+    private boolean hasLineItems(OrderRequest orderRequest) {
+        return orderRequest != null && orderRequest.getOrderLineItemsDtoList() != null
+                && !orderRequest.getOrderLineItemsDtoList().isEmpty();
+    }
+
+    private BatchOrderResult rejected(int index, String message) {
+        return BatchOrderResult.builder()
+                .index(index)
+                .status(BatchOrderStatus.REJECTED)
+                .message(message)
+                .build();
     }
 
     private OrderLineItems mapToDto(OrderLineItemsDto orderLineItemsDto) {
@@ -0,0 +1,85 @@
+package com.huzaifaproject.orderservice.service;
+
+import com.huzaifaproject.orderservice.model.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the SSE subscribers of this instance and pushes order status changes to them.
+ */
+@Component
+@Slf4j
+public class OrderStatusNotifier {
+
+    private static final String STATUS_EVENT = "status";
+
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${app.orders.status-stream.timeout-ms:300000}")
+    private long timeoutMs;
+
+    // Registers before the current status is read, so a change committed in between is pushed instead of missed.
+    // The read and first send hold the emitter's monitor, which SseEmitter.send also takes, so a change published
+    // meanwhile reaches the client after the status it follows
+    public SseEmitter subscribe(String orderNumber, Supplier<OrderStatus> currentStatus) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        subscribers.computeIfAbsent(orderNumber, key -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> remove(orderNumber, emitter));
+        emitter.onTimeout(() -> remove(orderNumber, emitter));
+        emitter.onError(ex -> remove(orderNumber, emitter));
+
+        synchronized (emitter) {
+            OrderStatus status;
+            try {
+                status = currentStatus.get();
+            } catch (RuntimeException ex) {
+                remove(orderNumber, emitter);
+                throw ex;
+            }
+            if (send(emitter, orderNumber, status) && status.isTerminal()) {
+                emitter.complete();
+            }
+        }
+        return emitter;
+    }
+
+    public void publish(String orderNumber, OrderStatus status) {
+        List<SseEmitter> emitters = status.isTerminal() ? subscribers.remove(orderNumber) : subscribers.get(orderNumber);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            if (send(emitter, orderNumber, status) && status.isTerminal()) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, String orderNumber, OrderStatus status) {
+        try {
+            emitter.send(SseEmitter.event().name(STATUS_EVENT).id(orderNumber + ":" + status).data(status.name()));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Dropping status subscriber for order {}: {}", orderNumber, ex.getMessage());
+            emitter.completeWithError(ex);
+            remove(orderNumber, emitter);
+            return false;
+        }
+    }
+
+    private void remove(String orderNumber, SseEmitter emitter) {
+        subscribers.computeIfPresent(orderNumber, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.huzaifaproject.orderservice.service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Snowflake-style 64-bit ids: 41 bits of milliseconds since 2024-01-01, 10 bits of worker id and a 12 bit sequence.
+ * Ids are rendered as 13 Crockford base32 characters, so string order matches creation order. Uniqueness across
+ * instances relies on each one using a different worker id; ids are refused while the worker id is not known to be
+ * held exclusively.
+ */
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] CROCKFORD_BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long workerId;
+    private final BooleanSupplier workerIdHeld;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    // For a worker id assigned by configuration, which stays valid for the life of the process
+    public SnowflakeOrderNumberGenerator(int workerId) {
+        this(workerId, () -> true);
+    }
+
+    public SnowflakeOrderNumberGenerator(int workerId, BooleanSupplier workerIdHeld) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + MAX_WORKER_ID);
+        }
+        this.workerId = workerId;
+        this.workerIdHeld = workerIdHeld;
+    }
+
+    @Override
+    public String nextOrderNumber() {
+        return encode(nextId());
+    }
+
+    public long nextId() {
+        if (!workerIdHeld.getAsBoolean()) {
+            throw new IllegalStateException("Snowflake worker id " + workerId + " is not leased to this instance");
+        }
+        long previous;
+        long next;
+        do {
+            previous = lastState.get();
+            long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            // A full sequence rolls into the next millisecond and a clock stepping back is ignored, so ids never repeat
+            next = Math.max(previous + 1, now);
+        } while (!lastState.compareAndSet(previous, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD_BASE32[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,12 @@
+package com.huzaifaproject.orderservice.service;
+
+import java.util.UUID;
+
+// Original random UUID order numbers, kept selectable with app.order-number.strategy=uuid
+public class UuidOrderNumberGenerator implements OrderNumberGenerator {
+
+    @Override
+    public String nextOrderNumber() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.huzaifaproject.orderservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Exclusive lease on a snowflake worker id, held as a row in t_order_worker_leases. Every instance takes the lowest
+ * free id at startup and keeps renewing it; a lease that is not renewed expires and the id can be taken again.
+ * Ids are only valid while the lease is known to be held, so an instance cut off from the database stops issuing
+ * order numbers before another instance can take over its worker id.
+ */
+@Slf4j
+public class WorkerIdLease implements AutoCloseable {
+
+    private static final int ACQUIRE_ATTEMPTS = 5;
+
+    // Inserts or takes over the lowest worker id without a live lease. Two instances racing for the same id
+    // conflict on the primary key; the loser's ON CONFLICT guard fails and it gets no row back
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO t_order_worker_leases (worker_id, instance_id, expires_at)
+            SELECT candidate, ?, now() + ? * interval '1 millisecond'
+            FROM generate_series(0, ?) AS candidate
+            WHERE NOT EXISTS (SELECT 1 FROM t_order_worker_leases lease
+                              WHERE lease.worker_id = candidate AND lease.expires_at > now())
+            ORDER BY candidate
+            LIMIT 1
+            ON CONFLICT (worker_id) DO UPDATE
+                SET instance_id = EXCLUDED.instance_id, expires_at = EXCLUDED.expires_at
+                WHERE t_order_worker_leases.expires_at <= now()
+            RETURNING worker_id""";
+
+    // Extends the lease while this instance holds it. A lease that already expired is taken back if no other
+    // instance has claimed the id in the meantime, so a database outage does not take the instance down for good
+    private static final String RENEW_SQL = """
+            INSERT INTO t_order_worker_leases (worker_id, instance_id, expires_at)
+            VALUES (?, ?, now() + ? * interval '1 millisecond')
+            ON CONFLICT (worker_id) DO UPDATE
+                SET instance_id = EXCLUDED.instance_id, expires_at = EXCLUDED.expires_at
+                WHERE t_order_worker_leases.instance_id = EXCLUDED.instance_id
+                   OR t_order_worker_leases.expires_at <= now()""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId;
+    private final Duration ttl;
+    private final int workerId;
+    // System.nanoTime() after which the lease may already belong to someone else
+    private volatile long validUntilNanos;
+
+    private WorkerIdLease(JdbcTemplate jdbcTemplate, String instanceId, Duration ttl, int workerId, long validUntilNanos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.instanceId = instanceId;
+        this.ttl = ttl;
+        this.workerId = workerId;
+        this.validUntilNanos = validUntilNanos;
+    }
+
+    public static WorkerIdLease acquire(JdbcTemplate jdbcTemplate, String instanceId, Duration ttl) {
+        for (int attempt = 0; attempt < ACQUIRE_ATTEMPTS; attempt++) {
+            long requestedAt = System.nanoTime();
+            List<Integer> acquired = jdbcTemplate.queryForList(ACQUIRE_SQL, Integer.class,
+                    instanceId, ttl.toMillis(), SnowflakeOrderNumberGenerator.MAX_WORKER_ID);
+            if (!acquired.isEmpty()) {
+                log.info("Leased snowflake worker id {} for instance {}", acquired.get(0), instanceId);
+                return new WorkerIdLease(jdbcTemplate, instanceId, ttl, acquired.get(0), requestedAt + ttl.toNanos());
+            }
+        }
+        throw new IllegalStateException("No free snowflake worker id; all " + (SnowflakeOrderNumberGenerator.MAX_WORKER_ID + 1)
+                + " are leased");
+    }
+
+    public int workerId() {
+        return workerId;
+    }
+
+    public boolean isValid() {
+        return System.nanoTime() - validUntilNanos < 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.order-number.lease-renew-ms:10000}")
+    public void renew() {
+        // The database sets the new expiry after this point, so counting from here never outlives the row
+        long requestedAt = System.nanoTime();
+        try {
+            if (jdbcTemplate.update(RENEW_SQL, workerId, instanceId, ttl.toMillis()) == 1) {
+                validUntilNanos = requestedAt + ttl.toNanos();
+            } else {
+                validUntilNanos = requestedAt;
+                log.error("Snowflake worker id {} is leased by another instance; order numbers cannot be generated",
+                        workerId);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not renew the lease on snowflake worker id {}: {}", workerId, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        validUntilNanos = System.nanoTime();
+        jdbcTemplate.update("DELETE FROM t_order_worker_leases WHERE worker_id = ? AND instance_id = ?",
+                workerId, instanceId);
+    }
+}
@@ -0,0 +1,201 @@
+package com.huzaifaproject.orderservice.util;
+
+import com.huzaifaproject.orderservice.model.OrderStatus;
+import com.huzaifaproject.orderservice.model.PaymentMethod;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Replaces the order history with generated orders when app.datagen.enabled is set, streamed in with COPY.
+ * SKUs are drawn with Zipf popularity and users with Zipf activity, from the same seed and SKU naming that
+ * inventory-service and product-service use, so the same seed always produces the same data across services.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datagen.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    // Matches the allocationSize of the order and line item sequences
+    private static final int SEQUENCE_ALLOCATION = 50;
+    // COPY data is handed to the driver in chunks of about this many bytes
+    private static final int COPY_CHUNK_BYTES = 1 << 20;
+    private static final PaymentMethod[] PAYMENT_METHODS = PaymentMethod.values();
+
+    private final DataSource dataSource;
+
+    @Value("${app.datagen.seed:42}")
+    private long seed;
+
+    @Value("${app.datagen.skus:1000000}")
+    private int skus;
+
+    @Value("${app.datagen.orders:1000000}")
+    private int orders;
+
+    @Value("${app.datagen.users:50000}")
+    private int users;
+
+    @Value("${app.datagen.zipf-exponent:1.1}")
+    private double zipfExponent;
+
+    @Value("${app.datagen.max-line-items:5}")
+    private int maxLineItems;
+
+    @Value("${app.datagen.history-days:365}")
+    private int historyDays;
+
+    // Fixed rather than now(), so reruns produce the same order dates
+    @Value("${app.datagen.history-end:2025-01-01T00:00:00}")
+    private LocalDateTime historyEnd;
+
+    @Override
+    public void run(String... args) throws Exception {
+        long started = System.nanoTime();
+        ZipfSampler skuPopularity = new ZipfSampler(skus, zipfExponent);
+        ZipfSampler userActivity = new ZipfSampler(users, zipfExponent);
+        long lineItems;
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("TRUNCATE t_order_line_items, t_orders");
+            }
+            // A connection runs one COPY at a time, so orders and line items are two passes over the same seed
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try (CopyStream orderCopy = new CopyStream(copyManager.copyIn("COPY t_orders (id, order_number, "
+                    + "username, order_date, delivery_address, phone_number, email, payment_method, status) FROM STDIN"))) {
+                generate(skuPopularity, userActivity, orderCopy, null);
+            }
+            try (CopyStream lineItemCopy = new CopyStream(copyManager.copyIn(
+                    "COPY t_order_line_items (id, sku_code, price, quantity, order_id) FROM STDIN"))) {
+                lineItems = generate(skuPopularity, userActivity, null, lineItemCopy);
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                // Hibernate's pooled ids continue above the generated ones
+                statement.execute("SELECT setval('t_orders_seq', " + (orders + SEQUENCE_ALLOCATION) + ")");
+                statement.execute("SELECT setval('t_order_line_items_seq', " + (lineItems + SEQUENCE_ALLOCATION) + ")");
+            }
+            connection.commit();
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Generated {} orders and {} line items in {} s ({} rows/s)", orders, lineItems,
+                String.format("%.1f", seconds), String.format("%.0f", (orders + lineItems) / seconds));
+    }
+
+    // Makes every random draw of both passes, writing only the rows of the stream it is given; returns the line items
+    private long generate(ZipfSampler skuPopularity, ZipfSampler userActivity,
+                          CopyStream orderRows, CopyStream lineItemRows) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        long historySeconds = historyDays * 86_400L;
+        long lineItems = 0;
+
+        for (long orderId = 1; orderId <= orders; orderId++) {
+            int user = userActivity.sample(random);
+            LocalDateTime orderDate = historyEnd.minusSeconds(random.nextLong(historySeconds));
+            UUID orderNumber = new UUID(random.nextLong(), random.nextLong());
+            PaymentMethod paymentMethod = PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)];
+            if (orderRows != null) {
+                StringBuilder row = orderRows.row().append(orderId).append('\t').append(orderNumber).append('\t');
+                appendUsername(row, user).append('\t').append(orderDate).append('\t')
+                        .append(user).append(" Synthetic Street\t+1555");
+                appendPadded(row, user, 7).append('\t');
+                appendUsername(row, user).append("@example.com\t")
+                        .append(paymentMethod).append('\t')
+                        .append(OrderStatus.COMPLETED).append('\n');
+                orderRows.flushIfFull();
+            }
+
+            // Mostly single-item baskets, with a tail up to maxLineItems
+            int items = 1;
+            while (items < maxLineItems && random.nextInt(3) == 0) {
+                items++;
+            }
+            for (int item = 0; item < items; item++) {
+                int sku = skuPopularity.sample(random);
+                int quantity = 1 + random.nextInt(3);
+                lineItems++;
+                if (lineItemRows != null) {
+                    StringBuilder row = lineItemRows.row().append(lineItems).append("\tproduct_");
+                    // Same naming as the generated products, whose skuCode is the lowercased name with underscores
+                    appendPadded(row, sku, 7).append('\t')
+                            .append(price(sku)).append('\t')
+                            .append(quantity).append('\t')
+                            .append(orderId).append('\n');
+                    lineItemRows.flushIfFull();
+                }
+            }
+        }
+        return lineItems;
+    }
+
+    private static StringBuilder appendUsername(StringBuilder row, int user) {
+        return appendPadded(row.append("user_"), user, 6);
+    }
+
+    // Zero-padded like %0<width>d, without a format parse per row
+    private static StringBuilder appendPadded(StringBuilder row, int value, int width) {
+        for (int digits = Integer.toString(value).length(); digits < width; digits++) {
+            row.append('0');
+        }
+        return row.append(value);
+    }
+
+    // Must stay in step with product-service's generator so line items carry the catalog price
+    private BigDecimal price(int sku) {
+        return BigDecimal.valueOf(new SplittableRandom(seed * 31 + sku).nextInt(500, 200_500), 2);
+    }
+
+    // Buffers COPY rows and hands them to the driver in chunks; generated values never contain tabs, newlines or
+    // backslashes, so rows need no COPY escaping
+    private static final class CopyStream implements AutoCloseable {
+
+        private final CopyIn copyIn;
+        private final StringBuilder rows = new StringBuilder(COPY_CHUNK_BYTES + 1024);
+
+        private CopyStream(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        private StringBuilder row() {
+            return rows;
+        }
+
+        private void flushIfFull() throws SQLException {
+            if (rows.length() >= COPY_CHUNK_BYTES) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            rows.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            flush();
+            copyIn.endCopy();
+        }
+    }
+}
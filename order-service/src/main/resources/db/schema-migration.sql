@@ -0,0 +1,45 @@
+-- Runs before Hibernate's ddl-auto=update on every start and is safe to re-run.
+-- Moves existing databases from IDENTITY ids and the t_orders_order_line_items_list join table
+-- to pooled sequences and a t_order_line_items.order_id foreign key, and creates tables Hibernate does not manage.
+
+DO $$
+DECLARE
+    migrated RECORD;
+    max_id BIGINT;
+BEGIN
+    -- Start each new sequence one allocation block above the current max id so pooled ids never collide
+    FOR migrated IN
+        SELECT * FROM (VALUES ('t_orders', 't_orders_seq'),
+                              ('t_order_line_items', 't_order_line_items_seq'),
+                              ('t_order_outbox', 't_order_outbox_seq')) AS tables (table_name, sequence_name)
+    LOOP
+        IF to_regclass(migrated.table_name) IS NOT NULL AND to_regclass(migrated.sequence_name) IS NULL THEN
+            EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', migrated.table_name) INTO max_id;
+            EXECUTE format('CREATE SEQUENCE %I INCREMENT BY 50 START WITH %s', migrated.sequence_name, max_id + 50);
+        END IF;
+    END LOOP;
+
+    -- Copy the order/line item links from the join table into the new foreign key column, then drop the join table
+    IF to_regclass('t_orders_order_line_items_list') IS NOT NULL THEN
+        ALTER TABLE t_order_line_items ADD COLUMN IF NOT EXISTS order_id BIGINT;
+
+        UPDATE t_order_line_items line_item
+        SET order_id = link.order_id
+        FROM t_orders_order_line_items_list link
+        WHERE link.order_line_items_list_id = line_item.id
+          AND line_item.order_id IS NULL;
+
+        -- Line items that never belonged to an order cannot satisfy the NOT NULL foreign key
+        DELETE FROM t_order_line_items WHERE order_id IS NULL;
+
+        ALTER TABLE t_order_line_items ALTER COLUMN order_id SET NOT NULL;
+        DROP TABLE t_orders_order_line_items_list;
+    END IF;
+
+    -- Snowflake worker ids, leased by instance (see WorkerIdLease)
+    CREATE TABLE IF NOT EXISTS t_order_worker_leases (
+        worker_id   INT PRIMARY KEY,
+        instance_id VARCHAR(255) NOT NULL,
+        expires_at  TIMESTAMPTZ NOT NULL
+    );
+END $$;
@@ -0,0 +1,113 @@
+package com.huzaifaproject.orderservice.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.orderservice.security.JwtUsernameResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of resolving the username from a Keycloak-shaped access token: the original split + readTree
+ * path, a cache miss (hash, streaming parse and insert into a cache that keeps nothing) and a cache hit. Run with
+ * -prof gc to see the allocation per call (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUsernameResolverBenchmark {
+
+    // Distinct tokens cycled through by the miss benchmark, with a cache that keeps none of them
+    private static final int DISTINCT_TOKENS = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JwtUsernameResolver cachingResolver;
+    private JwtUsernameResolver nonCachingResolver;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cachingResolver = new JwtUsernameResolver(objectMapper, new SimpleMeterRegistry(), 10_000, 300);
+        nonCachingResolver = new JwtUsernameResolver(objectMapper, new SimpleMeterRegistry(), 0, 300);
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens[i] = token(i);
+        }
+        cachingResolver.extractUsername(tokens[0]);
+    }
+
+    @Benchmark
+    public String original() {
+        return originalExtractUsername(nextToken());
+    }
+
+    @Benchmark
+    public String cacheMiss() {
+        return nonCachingResolver.extractUsername(nextToken());
+    }
+
+    @Benchmark
+    public String cacheHit() {
+        return cachingResolver.extractUsername(tokens[0]);
+    }
+
+    private String nextToken() {
+        next = (next + 1) & (DISTINCT_TOKENS - 1);
+        return tokens[next];
+    }
+
+    // JwtUsernameResolver.extractUsername before the cache and streaming parser
+    private String originalExtractUsername(String token) {
+        try {
+            String[] tokenParts = token.split("\\.");
+            JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(tokenParts[1]));
+            if (payload.hasNonNull("preferred_username")) {
+                return payload.get("preferred_username").asText();
+            }
+            if (payload.hasNonNull("email")) {
+                return payload.get("email").asText();
+            }
+            return payload.get("sub").asText();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Claims in the order Keycloak writes them, with preferred_username after the role maps
+    private static String token(int index) {
+        long now = Instant.now().getEpochSecond();
+        String header = "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"Qm9uZ0pXVEtleUlkZW50aWZpZXI\"}";
+        String payload = "{\"exp\":" + (now + 3600) + ",\"iat\":" + now
+                + ",\"jti\":\"6f1c2a4e-" + index + "\",\"iss\":\"http://localhost:8181/realms/spring-boot-microservices-realm\""
+                + ",\"aud\":\"account\",\"sub\":\"2c4d6e8f-1a3b-5c7d-9e0f-" + index + "\",\"typ\":\"Bearer\""
+                + ",\"azp\":\"spring-cloud-client\",\"session_state\":\"a1b2c3d4\",\"acr\":\"1\""
+                + ",\"realm_access\":{\"roles\":[\"offline_access\",\"uma_authorization\",\"default-roles\"]}"
+                + ",\"resource_access\":{\"account\":{\"roles\":[\"manage-account\",\"manage-account-links\",\"view-profile\"]}}"
+                + ",\"scope\":\"openid email profile\",\"sid\":\"a1b2c3d4\",\"email_verified\":true"
+                + ",\"name\":\"Customer " + index + "\",\"preferred_username\":\"customer" + index + "\""
+                + ",\"given_name\":\"Customer\",\"family_name\":\"" + index + "\",\"email\":\"customer" + index + "@example.com\"}";
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "."
+                + "c2lnbmF0dXJlLWJ5dGVzLW5vdC12ZXJpZmllZC1ieS10aGUtb3JkZXItc2VydmljZQ";
+    }
+}
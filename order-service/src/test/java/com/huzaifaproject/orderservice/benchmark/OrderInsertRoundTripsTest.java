@@ -0,0 +1,213 @@
+package com.huzaifaproject.orderservice.benchmark;
+
+import com.huzaifaproject.orderservice.model.Order;
+import com.huzaifaproject.orderservice.model.OrderLineItems;
+import com.huzaifaproject.orderservice.model.OrderStatus;
+import com.huzaifaproject.orderservice.model.PaymentMethod;
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Database round trips needed to insert one order with its line items, with the original IDENTITY ids and
+ * join table and with the current pooled sequences and order_id join column. Each order is saved in its own
+ * transaction, as a placement does, against an in-memory H2 database in PostgreSQL mode; every statement
+ * execution or executed batch counts as one round trip (commits excluded).
+ */
+class OrderInsertRoundTripsTest {
+
+    private static final int ORDERS = 200;
+    private static final int LINES_PER_ORDER = 10;
+
+    @Test
+    void batchedMappingNeedsAConstantNumberOfRoundTripsPerOrder() {
+        double before = roundTripsPerOrder("identity", Set.of(LegacyOrder.class, LegacyOrderLineItems.class),
+                OrderInsertRoundTripsTest::legacyOrder);
+        double after = roundTripsPerOrder("sequence", Set.of(Order.class, OrderLineItems.class),
+                OrderInsertRoundTripsTest::order);
+
+        String measured = String.format("round trips per order with %d lines: IDENTITY + join table %.2f, "
+                + "pooled sequences %.2f", LINES_PER_ORDER, before, after);
+        // IDENTITY inserts the order and each line on its own to read back the key; only the join rows batch
+        assertThat(before).as(measured).isEqualTo(1 + LINES_PER_ORDER + 1);
+        // One batch for the order, one for its lines, plus the amortised sequence fetches
+        assertThat(after).as(measured).isLessThan(2.5);
+    }
+
+    private static double roundTripsPerOrder(String database, Set<Class<?>> entities, IntFunction<Object> newOrder) {
+        CountingConnectionProvider connections =
+                new CountingConnectionProvider("jdbc:h2:mem:" + database + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.CONNECTION_PROVIDER, connections)
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                // Spring Boot's snake_case column names, which the @Index column lists refer to
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, new CamelCaseToUnderscoresNamingStrategy())
+                // The batching settings from application.properties
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, 50)
+                .applySetting(AvailableSettings.ORDER_INSERTS, true)
+                .applySetting(AvailableSettings.ORDER_UPDATES, true)
+                .build();
+        MetadataSources sources = new MetadataSources(registry);
+        entities.forEach(sources::addAnnotatedClass);
+
+        try (SessionFactory sessionFactory = sources.buildMetadata().buildSessionFactory()) {
+            connections.roundTrips.set(0);
+            for (int i = 0; i < ORDERS; i++) {
+                Object order = newOrder.apply(i);
+                sessionFactory.inTransaction(session -> session.persist(order));
+            }
+            return (double) connections.roundTrips.get() / ORDERS;
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+
+    private static Object order(int index) {
+        List<OrderLineItems> lines = new ArrayList<>();
+        for (int line = 0; line < LINES_PER_ORDER; line++) {
+            lines.add(new OrderLineItems(null, "sku_" + line, BigDecimal.TEN, 1));
+        }
+        Order order = new Order();
+        order.setOrderNumber("ORDER-" + index);
+        order.setUsername("alice");
+        order.setOrderDate(LocalDateTime.now());
+        order.setOrderLineItemsList(lines);
+        order.setDeliveryAddress("Main Street 1");
+        order.setPaymentMethod(PaymentMethod.CASH_ON_DELIVERY);
+        order.setStatus(OrderStatus.PENDING);
+        return order;
+    }
+
+    private static Object legacyOrder(int index) {
+        LegacyOrder order = new LegacyOrder();
+        order.orderNumber = "ORDER-" + index;
+        for (int line = 0; line < LINES_PER_ORDER; line++) {
+            LegacyOrderLineItems lineItem = new LegacyOrderLineItems();
+            lineItem.skuCode = "sku_" + line;
+            lineItem.price = BigDecimal.TEN;
+            lineItem.quantity = 1;
+            order.orderLineItemsList.add(lineItem);
+        }
+        return order;
+    }
+
+    // The mapping before sequence ids: IDENTITY keys and a unidirectional @OneToMany through a join table
+    @Entity
+    @Table(name = "t_orders")
+    static class LegacyOrder {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+        String orderNumber;
+        @OneToMany(cascade = CascadeType.ALL)
+        List<LegacyOrderLineItems> orderLineItemsList = new ArrayList<>();
+    }
+
+    @Entity
+    @Table(name = "t_order_line_items")
+    static class LegacyOrderLineItems {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+        String skuCode;
+        BigDecimal price;
+        Integer quantity;
+    }
+
+    // Hands out H2 connections whose statements count every execution and every executed batch
+    private static final class CountingConnectionProvider implements ConnectionProvider {
+
+        private static final Set<String> ROUND_TRIPS = Set.of(
+                "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+        private final String url;
+        private final AtomicLong roundTrips = new AtomicLong();
+
+        CountingConnectionProvider(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = DriverManager.getConnection(url);
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        return result instanceof Statement statement ? countingStatement(statement) : result;
+                    });
+        }
+
+        private Object countingStatement(Statement statement) {
+            Class<?>[] interfaces = statement.getClass().getInterfaces();
+            return Proxy.newProxyInstance(getClass().getClassLoader(),
+                    interfaces.length > 0 ? interfaces : new Class<?>[]{Statement.class},
+                    (proxy, method, args) -> {
+                        if (ROUND_TRIPS.contains(method.getName())) {
+                            roundTrips.incrementAndGet();
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public void closeConnection(Connection connection) throws SQLException {
+            connection.close();
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        // Unwraps to itself only, like Hibernate's own connection providers
+        @Override
+        public boolean isUnwrappableAs(Class<?> unwrapType) {
+            return unwrapType.isInstance(this);
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> unwrapType) {
+            if (!isUnwrappableAs(unwrapType)) {
+                throw new UnknownUnwrapTypeException(unwrapType);
+            }
+            return unwrapType.cast(this);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.huzaifaproject.orderservice.benchmark;
+
+import com.huzaifaproject.orderservice.service.OrderNumberGenerator;
+import com.huzaifaproject.orderservice.service.SnowflakeOrderNumberGenerator;
+import com.huzaifaproject.orderservice.service.UuidOrderNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one order number from the snowflake generator and from the original random UUID path, with several
+ * threads drawing from one shared generator as concurrent placements do. Run with -prof gc for allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class OrderNumberBenchmark {
+
+    private final OrderNumberGenerator snowflake = new SnowflakeOrderNumberGenerator(1);
+    private final OrderNumberGenerator uuid = new UuidOrderNumberGenerator();
+
+    @Benchmark
+    public String snowflake() {
+        return snowflake.nextOrderNumber();
+    }
+
+    @Benchmark
+    public String uuid() {
+        return uuid.nextOrderNumber();
+    }
+}
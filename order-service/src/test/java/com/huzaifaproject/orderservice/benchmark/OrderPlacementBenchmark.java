@@ -0,0 +1,125 @@
+package com.huzaifaproject.orderservice.benchmark;
+
+import com.huzaifaproject.orderservice.config.OrderExecutorConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of 1k concurrent placements, each blocking on an inventory lookup and a product update the way
+ * OrderService does, run on the common ForkJoin pool (the old supplyAsync path) and on the virtual-thread
+ * placement executor. Both downstreams are a local HTTP server answering after a fixed delay, so the score
+ * reflects how many placements can wait on I/O at once rather than how fast the downstreams are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+// The common pool is pinned to 8 workers so the result does not depend on the CPU count of the host (with a
+// single CPU CompletableFuture would fall back to a thread per task). The JDK server keeps every connection open.
+@Fork(value = 1, jvmArgsAppend = {
+        "-Djava.util.concurrent.ForkJoinPool.common.parallelism=8",
+        "-Dsun.net.httpserver.maxIdleConnections=1000"})
+public class OrderPlacementBenchmark {
+
+    private static final int CONCURRENT_PLACEMENTS = 1000;
+    private static final long DOWNSTREAM_LATENCY_MS = 20;
+
+    @Param({"commonPool", "virtualThreads"})
+    private String executor;
+
+    private HttpServer downstream;
+    private ExecutorService downstreamExecutor;
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+    private ExecutorService placementExecutor;
+    private Executor placementPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        downstreamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        downstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), CONCURRENT_PLACEMENTS);
+        downstream.setExecutor(downstreamExecutor);
+        downstream.createContext("/", exchange -> {
+            try {
+                Thread.sleep(DOWNSTREAM_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        downstream.start();
+
+        // Pool sized for the whole burst so the executor, not the connection pool, is what is being compared
+        connectionProvider = ConnectionProvider.builder("benchmark")
+                .maxConnections(CONCURRENT_PLACEMENTS)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        webClient = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + downstream.getAddress().getPort())
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
+
+        if ("virtualThreads".equals(executor)) {
+            placementExecutor = new OrderExecutorConfig().orderPlacementExecutor();
+            placementPath = placementExecutor;
+        } else {
+            placementPath = ForkJoinPool.commonPool();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (placementExecutor != null) {
+            placementExecutor.close();
+        }
+        connectionProvider.dispose();
+        downstream.stop(0);
+        downstreamExecutor.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_PLACEMENTS)
+    public void placeOrders() {
+        CompletableFuture<?>[] placements = new CompletableFuture<?>[CONCURRENT_PLACEMENTS];
+        for (int i = 0; i < CONCURRENT_PLACEMENTS; i++) {
+            placements[i] = CompletableFuture.supplyAsync(this::placeOrder, placementPath);
+        }
+        CompletableFuture.allOf(placements).join();
+    }
+
+    private String placeOrder() {
+        webClient.get().uri("/api/inventory?skuCode=iphone_13").retrieve().bodyToMono(String.class).block();
+        return webClient.post().uri("/api/product/decrease-quantity/bulk").retrieve().bodyToMono(String.class).block();
+    }
+}
@@ -0,0 +1,98 @@
+package com.huzaifaproject.orderservice.client;
+
+import com.huzaifaproject.orderservice.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final ClientRequest REQUEST =
+            ClientRequest.create(HttpMethod.GET, URI.create("http://inventory-service/api/inventory")).build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("inventory-service",
+            new AdaptiveConcurrencyLimiter.Settings(4, 1, 10, 0.5, Duration.ofSeconds(1), 0, Duration.ofMillis(50)),
+            meterRegistry);
+
+    @Test
+    void holdsThePermitUntilTheBodyHasBeenRead() {
+        ClientResponse response = limiter.filter(REQUEST, respondWith(HttpStatus.OK)).block();
+        assertThat(inFlight()).isEqualTo(1);
+
+        response.bodyToMono(String.class).block();
+
+        assertThat(inFlight()).isZero();
+        assertThat(limit()).isEqualTo(4);
+    }
+
+    @Test
+    void serverErrorsLowerTheLimit() {
+        limiter.filter(REQUEST, respondWith(HttpStatus.SERVICE_UNAVAILABLE)).block().releaseBody().block();
+
+        assertThat(inFlight()).isZero();
+        assertThat(limit()).isEqualTo(2);
+    }
+
+    @Test
+    void failedExchangesLowerTheLimit() {
+        ExchangeFunction failing = request -> Mono.error(new IOException("connection reset"));
+
+        assertThatThrownBy(() -> limiter.filter(REQUEST, failing).block()).hasCauseInstanceOf(IOException.class);
+
+        assertThat(inFlight()).isZero();
+        assertThat(limit()).isEqualTo(2);
+    }
+
+    @Test
+    void cancelledCallsReturnThePermitWithoutLoweringTheLimit() {
+        Disposable beforeResponse = limiter.filter(REQUEST, request -> Mono.never()).subscribe();
+        ClientResponse response = limiter.filter(REQUEST,
+                request -> Mono.just(ClientResponse.create(HttpStatus.OK).body(Flux.never()).build())).block();
+        Disposable duringBody = response.bodyToMono(String.class).subscribe();
+        assertThat(inFlight()).isEqualTo(2);
+
+        beforeResponse.dispose();
+        duringBody.dispose();
+
+        assertThat(inFlight()).isZero();
+        assertThat(limit()).isEqualTo(4);
+    }
+
+    @Test
+    void rejectsCallsOverTheLimitOnceTheQueueIsFull() {
+        for (int i = 0; i < 4; i++) {
+            limiter.filter(REQUEST, request -> Mono.never()).subscribe();
+        }
+
+        assertThatThrownBy(() -> limiter.filter(REQUEST, respondWith(HttpStatus.OK)).block())
+                .isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(meterRegistry.get("client.concurrency.rejected").counter().count()).isEqualTo(1);
+    }
+
+    private static ExchangeFunction respondWith(HttpStatus status) {
+        return request -> Mono.just(ClientResponse.create(status).body("[]").build());
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("client.concurrency.inflight").gauge().value();
+    }
+
+    private double limit() {
+        return meterRegistry.get("client.concurrency.limit").gauge().value();
+    }
+}
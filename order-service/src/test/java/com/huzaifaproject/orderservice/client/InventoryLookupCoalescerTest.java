@@ -0,0 +1,45 @@
+package com.huzaifaproject.orderservice.client;
+
+import com.huzaifaproject.orderservice.dto.InventoryResponse;
+import com.huzaifaproject.orderservice.exception.DownstreamTimeoutException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InventoryLookupCoalescerTest {
+
+    @Test
+    void splitsALargeLookupIntoRequestsOfAtMostMaxBatchSize() {
+        List<List<String>> requests = new CopyOnWriteArrayList<>();
+        InventoryLookupCoalescer coalescer = new InventoryLookupCoalescer(skuCodes -> {
+            requests.add(skuCodes);
+            return Mono.just(skuCodes.stream()
+                    .map(skuCode -> new InventoryResponse(skuCode, true, 1))
+                    .toArray(InventoryResponse[]::new));
+        }, Duration.ofMillis(1), 100, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        List<String> skuCodes = IntStream.range(0, 250).mapToObj(i -> "sku_" + i).toList();
+
+        Map<String, List<InventoryResponse>> results = coalescer.lookup(skuCodes);
+
+        assertThat(results).hasSize(250).allSatisfy((skuCode, responses) -> assertThat(responses).hasSize(1));
+        assertThat(requests).extracting(List::size).containsExactlyInAnyOrder(100, 100, 50);
+    }
+
+    @Test
+    void stopsWaitingAfterTheTimeout() {
+        InventoryLookupCoalescer coalescer = new InventoryLookupCoalescer(skuCodes -> Mono.never(),
+                Duration.ZERO, 100, Duration.ofMillis(50), new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> coalescer.lookup(List.of("iphone_13")))
+                .isInstanceOf(DownstreamTimeoutException.class);
+    }
+}
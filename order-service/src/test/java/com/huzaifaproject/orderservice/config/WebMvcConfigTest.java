@@ -0,0 +1,33 @@
+package com.huzaifaproject.orderservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebMvcConfigTest {
+
+    @Test
+    void matchesRespondAsyncAmongOtherPreferences() {
+        assertThat(prefersRespondAsync("respond-async")).isTrue();
+        assertThat(prefersRespondAsync("respond-async, wait=5")).isTrue();
+        assertThat(prefersRespondAsync("wait=5,Respond-Async")).isTrue();
+        assertThat(prefersRespondAsync("return=minimal", "respond-async; foo=bar")).isTrue();
+    }
+
+    @Test
+    void ignoresOtherPreferencesAndValues() {
+        assertThat(prefersRespondAsync()).isFalse();
+        assertThat(prefersRespondAsync("wait=5")).isFalse();
+        assertThat(prefersRespondAsync("handling=respond-async")).isFalse();
+        assertThat(prefersRespondAsync("respond-asynchronously")).isFalse();
+    }
+
+    private static boolean prefersRespondAsync(String... preferHeaders) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/order");
+        for (String preferHeader : preferHeaders) {
+            request.addHeader("Prefer", preferHeader);
+        }
+        return WebMvcConfig.RespondAsyncCondition.prefersRespondAsync(request);
+    }
+}
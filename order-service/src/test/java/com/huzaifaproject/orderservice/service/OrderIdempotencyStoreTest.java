@@ -0,0 +1,85 @@
+package com.huzaifaproject.orderservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.orderservice.dto.OrderRequest;
+import com.huzaifaproject.orderservice.exception.IdempotencyKeyMismatchException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderIdempotencyStoreTest {
+
+    private final OrderIdempotencyStore store =
+            new OrderIdempotencyStore(new ObjectMapper(), new SimpleMeterRegistry(), 60, 1000);
+
+    @Test
+    void replaysTheFirstPlacementForTheSameKeyAndBody() {
+        AtomicInteger placements = new AtomicInteger();
+        OrderRequest request = request("Main Street 1");
+
+        String first = store.placeOnce("alice", "key-1", request,
+                () -> CompletableFuture.completedFuture("order-" + placements.incrementAndGet())).join();
+        String second = store.placeOnce("alice", "key-1", request("Main Street 1"),
+                () -> CompletableFuture.completedFuture("order-" + placements.incrementAndGet())).join();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(placements).hasValue(1);
+    }
+
+    @Test
+    void rejectsTheSameKeyWithADifferentBody() {
+        store.placeOnce("alice", "key-1", request("Main Street 1"),
+                () -> CompletableFuture.completedFuture("order-1")).join();
+
+        assertThatThrownBy(() -> store.placeOnce("alice", "key-1", request("Main Street 2"),
+                () -> CompletableFuture.completedFuture("order-2")))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+    }
+
+    @Test
+    void scopesKeysPerUser() {
+        store.placeOnce("alice", "key-1", request("Main Street 1"),
+                () -> CompletableFuture.completedFuture("order-1")).join();
+
+        String other = store.placeOnce("bob", "key-1", request("Main Street 2"),
+                () -> CompletableFuture.completedFuture("order-2")).join();
+
+        assertThat(other).isEqualTo("order-2");
+    }
+
+    @Test
+    void forgetsAFailedPlacementSoItCanBeRetried() {
+        CompletableFuture<String> failed = store.placeOnce("alice", "key-1", request("Main Street 1"),
+                () -> CompletableFuture.failedFuture(new IllegalStateException("inventory down")));
+        assertThat(failed).isCompletedExceptionally();
+
+        String retried = store.placeOnce("alice", "key-1", request("Main Street 1"),
+                () -> CompletableFuture.completedFuture("order-1")).join();
+
+        assertThat(retried).isEqualTo("order-1");
+    }
+
+    @Test
+    void sharesAnInFlightPlacementWithoutLettingACallerCancelIt() {
+        CompletableFuture<String> attempt = new CompletableFuture<>();
+        CompletableFuture<String> first = store.placeOnce("alice", "key-1", request("Main Street 1"), () -> attempt);
+        CompletableFuture<String> second = store.placeOnce("alice", "key-1", request("Main Street 1"),
+                () -> CompletableFuture.completedFuture("duplicate"));
+
+        first.cancel(true);
+        attempt.complete("order-1");
+
+        assertThat(second.join()).isEqualTo("order-1");
+    }
+
+    private static OrderRequest request(String deliveryAddress) {
+        OrderRequest request = new OrderRequest();
+        request.setDeliveryAddress(deliveryAddress);
+        return request;
+    }
+}
@@ -0,0 +1,161 @@
+package com.huzaifaproject.orderservice.service;
+
+import com.huzaifaproject.orderservice.client.ProductClient;
+import com.huzaifaproject.orderservice.dto.BulkDecreaseQuantityResponse;
+import com.huzaifaproject.orderservice.dto.OrderLineItemsDto;
+import com.huzaifaproject.orderservice.event.InventoryReservationEvent;
+import com.huzaifaproject.orderservice.event.OrderOutbox;
+import com.huzaifaproject.orderservice.model.Order;
+import com.huzaifaproject.orderservice.model.OrderLineItems;
+import com.huzaifaproject.orderservice.model.OrderStatus;
+import com.huzaifaproject.orderservice.repository.OrderRepository;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderSagaServiceTest {
+
+    private static final String ORDER_NUMBER = "order-1";
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final ProductClient productClient = mock(ProductClient.class);
+    private final OrderOutbox orderOutbox = mock(OrderOutbox.class);
+    private final OrderSagaService orderSagaService = new OrderSagaService(orderRepository, productClient, orderOutbox,
+            mock(ApplicationEventPublisher.class), new OrderPhaseObserver(ObservationRegistry.NOOP),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderSagaService, "reservationMarginMs", 60_000L);
+        ReflectionTestUtils.setField(orderSagaService, "recoveryDeadlineMs", 300_000L);
+    }
+
+    @Test
+    void resumesAStuckOrderUnderItsOrderNumberAndCompletesIt() {
+        Order order = reservedOrder(Instant.now().plusSeconds(900));
+        stuck(order);
+        when(productClient.decreaseQuantities(eq(ORDER_NUMBER), anyList())).thenReturn(applied(0));
+        when(orderRepository.transitionStatus(ORDER_NUMBER, OrderStatus.INVENTORY_RESERVED, OrderStatus.COMPLETED))
+                .thenReturn(1);
+
+        assertThat(orderSagaService.recoverStuckOrders(10)).isEqualTo(1);
+
+        // The order number is the operation id, so product-service ignores the decrease if it was applied before
+        ArgumentCaptor<List<OrderLineItemsDto>> items = listCaptor();
+        verify(productClient).decreaseQuantities(eq(ORDER_NUMBER), items.capture());
+        assertThat(items.getValue()).singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(3));
+        verify(orderOutbox).orderPlaced(order, true);
+        verify(productClient, never()).increaseQuantities(anyString(), anyList());
+    }
+
+    @Test
+    void compensatesAStuckOrderWhoseReservationLapsed() {
+        stuck(reservedOrder(Instant.now()));
+        when(orderRepository.transitionStatus(ORDER_NUMBER, OrderStatus.INVENTORY_RESERVED, OrderStatus.FAILED))
+                .thenReturn(1);
+
+        orderSagaService.recoverStuckOrders(10);
+
+        verify(productClient, never()).decreaseQuantities(anyString(), anyList());
+        // Undoes a decrease an interrupted attempt may have applied; product-service ignores it otherwise
+        verify(productClient).increaseQuantities(eq(ORDER_NUMBER), anyList());
+        verify(orderOutbox).inventoryReleased(ORDER_NUMBER);
+    }
+
+    @Test
+    void leavesAStuckOrderClaimedByAnotherInstance() {
+        when(orderRepository.findOrderNumbersStuckIn(eq(OrderStatus.INVENTORY_RESERVED), any(), any()))
+                .thenReturn(List.of(ORDER_NUMBER));
+        when(orderRepository.claimStuckOrder(eq(ORDER_NUMBER), eq(OrderStatus.INVENTORY_RESERVED), any(), any()))
+                .thenReturn(0);
+
+        orderSagaService.recoverStuckOrders(10);
+
+        verifyNoInteractions(productClient, orderOutbox);
+    }
+
+    @Test
+    void undoesAPartialDecreaseAndFailsTheOrder() {
+        Order order = reservedOrder(null);
+        received(order);
+        when(productClient.decreaseQuantities(eq(ORDER_NUMBER), anyList())).thenReturn(applied(1));
+        when(orderRepository.transitionStatus(ORDER_NUMBER, OrderStatus.INVENTORY_RESERVED, OrderStatus.FAILED))
+                .thenReturn(1);
+
+        orderSagaService.handleInventoryReservation(new InventoryReservationEvent(ORDER_NUMBER, true, null, null));
+
+        verify(productClient).increaseQuantities(eq(ORDER_NUMBER), anyList());
+        verify(orderOutbox).inventoryReleased(ORDER_NUMBER);
+        verify(orderOutbox, never()).orderPlaced(any(), eq(true));
+    }
+
+    @Test
+    void writesNoEventsForAnOrderAnotherAttemptAlreadyFinished() {
+        received(reservedOrder(null));
+        when(productClient.decreaseQuantities(eq(ORDER_NUMBER), anyList())).thenReturn(applied(0));
+        when(orderRepository.transitionStatus(ORDER_NUMBER, OrderStatus.INVENTORY_RESERVED, OrderStatus.COMPLETED))
+                .thenReturn(0);
+
+        orderSagaService.handleInventoryReservation(new InventoryReservationEvent(ORDER_NUMBER, true, null, null));
+
+        verifyNoInteractions(orderOutbox);
+    }
+
+    private void stuck(Order order) {
+        when(orderRepository.findOrderNumbersStuckIn(eq(OrderStatus.INVENTORY_RESERVED), any(), any()))
+                .thenReturn(List.of(ORDER_NUMBER));
+        when(orderRepository.claimStuckOrder(eq(ORDER_NUMBER), eq(OrderStatus.INVENTORY_RESERVED), any(), any()))
+                .thenReturn(1);
+        when(orderRepository.findByOrderNumber(ORDER_NUMBER)).thenReturn(Optional.of(order));
+    }
+
+    private void received(Order order) {
+        order.setStatus(OrderStatus.PENDING);
+        when(orderRepository.findByOrderNumber(ORDER_NUMBER)).thenReturn(Optional.of(order));
+        when(orderRepository.recordReservationAnswer(eq(ORDER_NUMBER), eq(OrderStatus.PENDING),
+                eq(OrderStatus.INVENTORY_RESERVED), any(), any())).thenReturn(1);
+    }
+
+    // Two lines of the same SKU, which the product step sends as one
+    private static Order reservedOrder(Instant reservationExpiresAt) {
+        Order order = new Order();
+        order.setOrderNumber(ORDER_NUMBER);
+        order.setStatus(OrderStatus.INVENTORY_RESERVED);
+        order.setReservationExpiresAt(reservationExpiresAt);
+        order.setOrderLineItemsList(List.of(
+                new OrderLineItems(1L, "iphone_13", BigDecimal.TEN, 1),
+                new OrderLineItems(2L, "iphone_13", BigDecimal.TEN, 2)));
+        return order;
+    }
+
+    private static BulkDecreaseQuantityResponse applied(int failed) {
+        return new BulkDecreaseQuantityResponse(1 - failed, failed, List.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<OrderLineItemsDto>> listCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,122 @@
+package com.huzaifaproject.orderservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huzaifaproject.orderservice.client.InventoryClient;
+import com.huzaifaproject.orderservice.client.ProductClient;
+import com.huzaifaproject.orderservice.dto.BatchOrderResult;
+import com.huzaifaproject.orderservice.dto.BatchOrderStatus;
+import com.huzaifaproject.orderservice.dto.BulkDecreaseQuantityResponse;
+import com.huzaifaproject.orderservice.dto.DecreaseQuantityResult;
+import com.huzaifaproject.orderservice.dto.InventoryResponse;
+import com.huzaifaproject.orderservice.dto.OrderLineItemsDto;
+import com.huzaifaproject.orderservice.dto.OrderRequest;
+import com.huzaifaproject.orderservice.event.OrderOutbox;
+import com.huzaifaproject.orderservice.exception.OrderProcessingException;
+import com.huzaifaproject.orderservice.model.Order;
+import com.huzaifaproject.orderservice.repository.OrderRepository;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final InventoryClient inventoryClient = mock(InventoryClient.class);
+    private final OrderOutbox orderOutbox = mock(OrderOutbox.class);
+    private final ProductClient productClient = mock(ProductClient.class);
+    private final OrderService orderService = new OrderService(orderRepository, inventoryClient,
+            new OrderPhaseObserver(ObservationRegistry.NOOP), orderOutbox, productClient, mock(EntityManager.class),
+            new ObjectMapper(), new UuidOrderNumberGenerator());
+
+    @Test
+    void rejectsOrdersOnceTheReportedQuantityIsUsedUpByEarlierOrdersInTheBatch() {
+        when(inventoryClient.checkStock(anyList())).thenReturn(List.of(new InventoryResponse("iphone_13", true, 5)));
+        when(productClient.decreaseQuantities(anyList()))
+                .thenAnswer(invocation -> allUpdated(invocation.getArgument(0)));
+
+        List<BatchOrderResult> results = orderService.placeOrders(List.of(
+                order(line("iphone_13", 2), line("iphone_13", 1)), order(line("iphone_13", 3)),
+                order(line("iphone_13", 1))), "alice");
+
+        assertThat(results).extracting(BatchOrderResult::getStatus)
+                .containsExactly(BatchOrderStatus.ACCEPTED, BatchOrderStatus.REJECTED, BatchOrderStatus.ACCEPTED);
+        ArgumentCaptor<List<OrderLineItemsDto>> decreased = listCaptor();
+        verify(productClient).decreaseQuantities(decreased.capture());
+        assertThat(decreased.getValue()).hasSize(3);
+    }
+
+    @Test
+    void rejectsOnlyTheOrderWhoseLineProductServiceRefusedAndPutsBackItsOtherLines() {
+        when(inventoryClient.checkStock(anyList())).thenReturn(List.of(
+                new InventoryResponse("iphone_13", true, 10), new InventoryResponse("pixel_8", true, 10)));
+        when(productClient.decreaseQuantities(anyList())).thenReturn(response(
+                result("iphone_13", "UPDATED"), result("pixel_8", "NOT_ENOUGH_STOCK"), result("iphone_13", "UPDATED")));
+
+        List<BatchOrderResult> results = orderService.placeOrders(List.of(
+                order(line("iphone_13", 1), line("pixel_8", 1)), order(line("iphone_13", 1))), "alice");
+
+        assertThat(results.get(0).getStatus()).isEqualTo(BatchOrderStatus.REJECTED);
+        assertThat(results.get(0).getMessage()).contains("pixel_8");
+        assertThat(results.get(1).getStatus()).isEqualTo(BatchOrderStatus.ACCEPTED);
+        ArgumentCaptor<List<OrderLineItemsDto>> restored = listCaptor();
+        verify(productClient).increaseQuantities(restored.capture());
+        assertThat(restored.getValue()).extracting(OrderLineItemsDto::getSkuCode).containsExactly("iphone_13");
+        ArgumentCaptor<List<Order>> persisted = listCaptor();
+        verify(orderRepository).saveAll(persisted.capture());
+        assertThat(persisted.getValue()).extracting(Order::getOrderNumber)
+                .containsExactly(results.get(1).getOrderNumber());
+    }
+
+    @Test
+    void failsASingleOrderProductServiceRefused() {
+        when(inventoryClient.checkStock(anyList())).thenReturn(List.of(new InventoryResponse("iphone_13", true, 1)));
+        when(productClient.decreaseQuantities(anyList())).thenReturn(response(result("iphone_13", "NOT_ENOUGH_STOCK")));
+
+        assertThatThrownBy(() -> orderService.placeOrder(order(line("iphone_13", 1)), "alice"))
+                .isInstanceOf(OrderProcessingException.class)
+                .hasMessageContaining("iphone_13");
+        verify(productClient, never()).increaseQuantities(anyList());
+    }
+
+    private static OrderRequest order(OrderLineItemsDto... lines) {
+        OrderRequest request = new OrderRequest();
+        request.setOrderLineItemsDtoList(List.of(lines));
+        return request;
+    }
+
+    private static OrderLineItemsDto line(String skuCode, int quantity) {
+        return new OrderLineItemsDto(null, skuCode, BigDecimal.TEN, quantity);
+    }
+
+    private static BulkDecreaseQuantityResponse allUpdated(List<OrderLineItemsDto> items) {
+        return response(items.stream().map(item -> result(item.getSkuCode(), "UPDATED"))
+                .toArray(DecreaseQuantityResult[]::new));
+    }
+
+    private static BulkDecreaseQuantityResponse response(DecreaseQuantityResult... results) {
+        int updated = (int) Arrays.stream(results).filter(DecreaseQuantityResult::isUpdated).count();
+        return new BulkDecreaseQuantityResponse(updated, results.length - updated, List.of(results));
+    }
+
+    private static DecreaseQuantityResult result(String skuCode, String status) {
+        return new DecreaseQuantityResult(skuCode, 1, status, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArgumentCaptor<List<T>> listCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
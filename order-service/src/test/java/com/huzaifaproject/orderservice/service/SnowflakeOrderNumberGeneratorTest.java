@@ -0,0 +1,101 @@
+package com.huzaifaproject.orderservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    @Test
+    void orderNumbersSortInCreationOrder() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7);
+
+        List<String> orderNumbers = new ArrayList<>();
+        // More than one millisecond's worth of sequence numbers, so the sequence rolls over at least once
+        for (int i = 0; i < 10_000; i++) {
+            orderNumbers.add(generator.nextOrderNumber());
+        }
+
+        assertThat(orderNumbers).isSorted().doesNotHaveDuplicates();
+        assertThat(orderNumbers).allSatisfy(orderNumber -> assertThat(orderNumber).hasSize(13));
+    }
+
+    @Test
+    void carriesTheWorkerId() {
+        long id = new SnowflakeOrderNumberGenerator(SnowflakeOrderNumberGenerator.MAX_WORKER_ID).nextId();
+
+        assertThat((id >>> 12) & SnowflakeOrderNumberGenerator.MAX_WORKER_ID)
+                .isEqualTo(SnowflakeOrderNumberGenerator.MAX_WORKER_ID);
+    }
+
+    @Test
+    void differentWorkersNeverCollide() {
+        SnowflakeOrderNumberGenerator first = new SnowflakeOrderNumberGenerator(1);
+        SnowflakeOrderNumberGenerator second = new SnowflakeOrderNumberGenerator(2);
+
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 5_000; i++) {
+            ids.add(first.nextId());
+            ids.add(second.nextId());
+        }
+
+        assertThat(ids).hasSize(10_000);
+    }
+
+    @Test
+    void staysUniqueUnderConcurrency() throws Exception {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(3);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+
+        assertThat(ids).hasSize(8 * 20_000);
+    }
+
+    @Test
+    void refusesIdsOnceTheWorkerIdIsNoLongerHeld() {
+        AtomicBoolean held = new AtomicBoolean(true);
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(4, held::get);
+        generator.nextOrderNumber();
+
+        held.set(false);
+
+        assertThatThrownBy(generator::nextOrderNumber).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsWorkerIdsOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeOrderNumberGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeOrderNumberGenerator(SnowflakeOrderNumberGenerator.MAX_WORKER_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encodesInCrockfordBase32() {
+        assertThat(SnowflakeOrderNumberGenerator.encode(0)).isEqualTo("0000000000000");
+        assertThat(SnowflakeOrderNumberGenerator.encode(31)).isEqualTo("000000000000Z");
+        assertThat(SnowflakeOrderNumberGenerator.encode(32)).isEqualTo("0000000000010");
+    }
+}
@@ -1,12 +1,18 @@
 package com.huzaifaproject.productservice.controller;
 
+import com.huzaifaproject.productservice.dto.BulkDecreaseQuantityRequest;
+import com.huzaifaproject.productservice.dto.BulkDecreaseQuantityResponse;
 import com.huzaifaproject.productservice.dto.DecreaseQuantityRequest;
 import com.huzaifaproject.productservice.dto.ProductRequest;
 import com.huzaifaproject.productservice.dto.ProductResponse;
+import com.huzaifaproject.productservice.service.CatalogVersion;
 import com.huzaifaproject.productservice.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,7 +21,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final ProductService productService;
+    private final CatalogVersion catalogVersion;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -23,16 +33,37 @@ public class ProductController {
         productService.createProduct(productRequest);
     }
 
+    // Reads carry the catalog version as ETag; a matching If-None-Match gets a 304 without a product query.
+    // Without page and size the whole catalog is returned, as before
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<ProductResponse> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<List<ProductResponse>> getAllProducts(@RequestParam(required = false) Integer page,
+                                                                @RequestParam(required = false) Integer size,
+                                                                WebRequest webRequest) {
+        String etag = catalogVersion.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        List<ProductResponse> products = page == null && size == null
+                ? productService.getAllProducts()
+                : productService.getProducts(page == null ? 0 : Math.max(page, 0),
+                        size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(products);
     }
 
+    // Versioned per product, so stock changes to other products do not invalidate it
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public ProductResponse getProductById(@PathVariable String id) {
-        return productService.getProductById(id);
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable String id, WebRequest webRequest) {
+        String etag = productService.getProductEtag(id);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(productService.getProductById(id));
     }
 
     @PutMapping("/{id}")
@@ -53,4 +84,16 @@ public class ProductController {
         productService.decreaseQuantity(request);
     }
 
+    @PostMapping("/decrease-quantity/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    public BulkDecreaseQuantityResponse decreaseQuantities(@RequestBody BulkDecreaseQuantityRequest request) {
+        return productService.decreaseQuantities(request);
+    }
+
+    @PostMapping("/increase-quantity/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    public BulkDecreaseQuantityResponse increaseQuantities(@RequestBody BulkDecreaseQuantityRequest request) {
+        return productService.increaseQuantities(request);
+    }
+
 }
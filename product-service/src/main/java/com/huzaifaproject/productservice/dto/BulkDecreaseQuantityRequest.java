@@ -0,0 +1,18 @@
+package com.huzaifaproject.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDecreaseQuantityRequest {
+    private List<DecreaseQuantityRequest> items;
+    // Optional. A decrease with an id is applied at most once per product, and an increase with the same id undoes
+    // exactly that decrease, so a caller may retry either without knowing whether the first attempt got through.
+    // Each SKU may appear only once in such a request
+    private String operationId;
+}
@@ -0,0 +1,18 @@
+package com.huzaifaproject.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDecreaseQuantityResponse {
+    private int updated;
+    private int failed;
+    private List<DecreaseQuantityResult> results;
+}
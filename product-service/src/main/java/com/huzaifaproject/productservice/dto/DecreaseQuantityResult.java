@@ -0,0 +1,17 @@
+package com.huzaifaproject.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DecreaseQuantityResult {
+    private String skuCode;
+    private Integer requestedQuantity;
+    private DecreaseQuantityStatus status;
+    private String message;
+}
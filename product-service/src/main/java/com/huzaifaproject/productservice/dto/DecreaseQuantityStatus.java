@@ -0,0 +1,9 @@
+package com.huzaifaproject.productservice.dto;
+
+public enum DecreaseQuantityStatus {
+    UPDATED,
+    NOT_FOUND,
+    NOT_ENOUGH_STOCK,
+    INVALID_QUANTITY,
+    FAILED
+}
@@ -5,9 +5,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Document(value = "product")
 @AllArgsConstructor
@@ -19,8 +21,16 @@ public class Product {
     @Id
     private String id;
     private String name;
+    // Derived from name ("iPhone 13" -> iphone_13); the key order-service and inventory-service use
+    @Indexed
+    private String skuCode;
     private String description;
     private BigDecimal price;
     private Integer quantity;
     private String imageData;
+    // Bumped by every write to this product and used as the ETag of GET /api/product/{id}; missing reads as 0
+    private Long version;
+    // Ids of the latest bulk decreases applied to this product (see BulkDecreaseQuantityRequest.operationId), capped
+    // at app.product.stock-operations.window entries
+    private List<String> stockOperations;
 }
@@ -3,5 +3,9 @@ package com.huzaifaproject.productservice.repository;
 import com.huzaifaproject.productservice.model.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Optional;
+
 public interface ProductRepository extends MongoRepository<Product, String> {
+
+    Optional<Product> findFirstBySkuCode(String skuCode);
 }
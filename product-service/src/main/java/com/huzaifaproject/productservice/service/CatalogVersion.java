@@ -0,0 +1,37 @@
+package com.huzaifaproject.productservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Version of the product catalog used as the ETag of catalog reads. It is a counter document in Mongo that every
+ * write bumps with $inc after it is applied, so all product-service instances share it and a restart carries on
+ * from where it was. Readers take the version before the products, so a body is never older than its ETag.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogVersion {
+
+    // Kept out of the product collection, which the synthetic data generator drops
+    private static final String COLLECTION = "catalog_version";
+    private static final String CATALOG_ID = "catalog";
+
+    private final MongoTemplate mongoTemplate;
+
+    public void bump() {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(CATALOG_ID)), new Update().inc("version", 1L), COLLECTION);
+    }
+
+    public String etag() {
+        Query query = Query.query(Criteria.where("_id").is(CATALOG_ID));
+        query.fields().include("version");
+        Document catalog = mongoTemplate.findOne(query, Document.class, COLLECTION);
+        Number version = catalog == null ? null : catalog.get("version", Number.class);
+        return "catalog-" + (version == null ? 0 : version.longValue());
+    }
+}
@@ -1,16 +1,41 @@
 package com.huzaifaproject.productservice.service;
 
+import com.huzaifaproject.productservice.dto.BulkDecreaseQuantityRequest;
+import com.huzaifaproject.productservice.dto.BulkDecreaseQuantityResponse;
 import com.huzaifaproject.productservice.dto.DecreaseQuantityRequest;
+import com.huzaifaproject.productservice.dto.DecreaseQuantityResult;
+import com.huzaifaproject.productservice.dto.DecreaseQuantityStatus;
 import com.huzaifaproject.productservice.dto.ProductRequest;
 import com.huzaifaproject.productservice.dto.ProductResponse;
 import com.huzaifaproject.productservice.exception.ProductNotFoundException;
 import com.huzaifaproject.productservice.model.Product;
 import com.huzaifaproject.productservice.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -18,19 +43,28 @@ import java.util.List;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CatalogVersion catalogVersion;
+
+    // How many operation ids a product remembers; a retry is recognised only while its id is within this window
+    @Value("${app.product.stock-operations.window:1000}")
+    private int stockOperationsWindow;
 
     public void createProduct(ProductRequest productRequest) {
 
         Product product = Product.builder()
                 .name(productRequest.getName())
+                .skuCode(toSkuCode(productRequest.getName()))
                 .description(productRequest.getDescription())
                 .price(productRequest.getPrice())
                 .quantity(productRequest.getQuantity())
                 .imageData(productRequest.getImageData())
+                .version(1L)
                 .build();
 
         log.info("Product before save - imageData: {}", product.getImageData() != null ? "present" : "null");
         Product savedProduct = productRepository.save(product);
+        catalogVersion.bump();
         log.info("Product {} is saved with imageData: {}", savedProduct.getId(),
                 savedProduct.getImageData() != null ? "present" : "null");
     }
@@ -41,6 +75,24 @@ public class ProductService {
         return products.stream().map(this::mapToProductResponse).toList();
     }
 
+    // One page of the catalog in _id order, for clients that cannot take the whole catalog in one response
+    public List<ProductResponse> getProducts(int page, int size) {
+        return productRepository.findAll(PageRequest.of(page, size, Sort.by("_id"))).stream()
+                .map(this::mapToProductResponse)
+                .toList();
+    }
+
+    // Reads only the version, so an unchanged product is answered without loading its image data
+    public String getProductEtag(String id) {
+        Query byId = Query.query(Criteria.where("_id").is(id));
+        byId.fields().include("version");
+        Product product = mongoTemplate.findOne(byId, Product.class);
+        if (product == null) {
+            throw new ProductNotFoundException("Product not found with id: " + id);
+        }
+        return id + "-" + versionOf(product);
+    }
+
     public ProductResponse getProductById(String id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
@@ -53,12 +105,15 @@ public class ProductService {
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
 
         product.setName(productRequest.getName());
+        product.setSkuCode(toSkuCode(productRequest.getName()));
         product.setDescription(productRequest.getDescription());
         product.setPrice(productRequest.getPrice());
         product.setQuantity(productRequest.getQuantity());
         product.setImageData(productRequest.getImageData());
+        product.setVersion(versionOf(product) + 1);
 
         productRepository.save(product);
+        catalogVersion.bump();
         log.info("Product {} is updated", product.getId());
     }
 
@@ -67,15 +122,12 @@ public class ProductService {
             throw new ProductNotFoundException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        catalogVersion.bump();
         log.info("Product {} is deleted", id);
     }
 
     public void decreaseQuantity(DecreaseQuantityRequest request) {
-        List<Product> products = productRepository.findAll();
-
-        Product product = products.stream()
-                .filter(p -> p.getName().toLowerCase().replace(" ", "_").equals(request.getSkuCode()))
-                .findFirst()
+        Product product = productRepository.findFirstBySkuCode(request.getSkuCode())
                 .orElseThrow(
                         () -> new ProductNotFoundException("Product not found with skuCode: " + request.getSkuCode()));
 
@@ -83,11 +135,186 @@ public class ProductService {
         int requestedQuantity = request.getQuantity() == null ? 0 : request.getQuantity();
         int updatedQuantity = Math.max(0, (currentQuantity == null ? 0 : currentQuantity) - requestedQuantity);
         product.setQuantity(updatedQuantity);
+        product.setVersion(versionOf(product) + 1);
         productRepository.save(product);
+        catalogVersion.bump();
         log.info("Decreased quantity for product {} by {}. New quantity: {}",
                 product.getName(), requestedQuantity, product.getQuantity());
     }
 
+    public BulkDecreaseQuantityResponse decreaseQuantities(BulkDecreaseQuantityRequest request) {
+        return adjustQuantities(request, true);
+    }
+
+    // Puts stock back, e.g. when an order saga compensates a decrement that was already applied
+    public BulkDecreaseQuantityResponse increaseQuantities(BulkDecreaseQuantityRequest request) {
+        return adjustQuantities(request, false);
+    }
+
+    private BulkDecreaseQuantityResponse adjustQuantities(BulkDecreaseQuantityRequest request, boolean decrease) {
+        List<DecreaseQuantityRequest> items = request.getItems() == null ? List.of() : request.getItems();
+        String operationId = request.getOperationId();
+
+        // Resolve the ids of the requested SKUs with one indexed read
+        Set<String> skuCodes = new HashSet<>();
+        items.forEach(item -> skuCodes.add(item.getSkuCode()));
+        Query bySkuCode = Query.query(Criteria.where("skuCode").in(skuCodes));
+        bySkuCode.fields().include("_id", "skuCode");
+        Map<String, String> productIdsBySkuCode = new HashMap<>();
+        for (Product product : mongoTemplate.find(bySkuCode, Product.class)) {
+            productIdsBySkuCode.putIfAbsent(product.getSkuCode(), product.getId());
+        }
+
+        DecreaseQuantityResult[] results = new DecreaseQuantityResult[items.size()];
+        List<Integer> queuedItemIndexes = new ArrayList<>();
+        List<String> queuedProductIds = new ArrayList<>();
+        Set<String> operationSkuCodes = new HashSet<>();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+
+        for (int i = 0; i < items.size(); i++) {
+            DecreaseQuantityRequest item = items.get(i);
+            Integer requestedQuantity = item.getQuantity();
+            if (requestedQuantity == null || requestedQuantity <= 0) {
+                results[i] = buildResult(item, DecreaseQuantityStatus.INVALID_QUANTITY, "Quantity must be greater than zero");
+                continue;
+            }
+
+            String productId = productIdsBySkuCode.get(item.getSkuCode());
+            if (productId == null) {
+                results[i] = buildResult(item, DecreaseQuantityStatus.NOT_FOUND,
+                        "Product not found with skuCode: " + item.getSkuCode());
+                continue;
+            }
+
+            if (operationId != null && !operationSkuCodes.add(item.getSkuCode())) {
+                results[i] = buildResult(item, DecreaseQuantityStatus.FAILED,
+                        "skuCode appears more than once in operation " + operationId + ": " + item.getSkuCode());
+                continue;
+            }
+
+            if (decrease) {
+                // Only matches while the stock covers the line. The upsert turns a miss into an insert of an
+                // existing _id, which the bulk write reports for this operation as a duplicate key error
+                Criteria coveredByStock = Criteria.where("_id").is(productId).and("quantity").gte(requestedQuantity);
+                Update decreaseQuantity = new Update().inc("quantity", -requestedQuantity).inc("version", 1L);
+                if (operationId != null) {
+                    // The marker is written in the same single-document update as the stock, so it is exact
+                    coveredByStock.and("stockOperations").ne(operationId);
+                    decreaseQuantity.push("stockOperations").slice(-stockOperationsWindow).each(operationId);
+                }
+                bulkOperations.upsert(Query.query(coveredByStock), decreaseQuantity);
+            } else if (operationId != null) {
+                // Undoes the operation's decrease only while its marker is there; when nothing matches there is
+                // nothing to give back, and the line still counts as UPDATED
+                bulkOperations.updateOne(
+                        Query.query(Criteria.where("_id").is(productId).and("stockOperations").is(operationId)),
+                        new Update().inc("quantity", requestedQuantity).inc("version", 1L)
+                                .pull("stockOperations", operationId));
+            } else {
+                bulkOperations.updateOne(Query.query(Criteria.where("_id").is(productId)),
+                        increaseQuantityUpdate(requestedQuantity));
+            }
+            queuedItemIndexes.add(i);
+            queuedProductIds.add(productId);
+            results[i] = buildResult(item, DecreaseQuantityStatus.UPDATED, null);
+        }
+
+        if (!queuedItemIndexes.isEmpty()) {
+            List<Integer> missedItemIndexes = new ArrayList<>();
+            BulkWriteResult writeResult;
+            try {
+                writeResult = bulkOperations.execute();
+            } catch (BulkOperationException ex) {
+                // Unordered bulk write: only the reported operations failed, the rest were applied
+                writeResult = ex.getResult();
+                for (BulkWriteError error : ex.getErrors()) {
+                    int itemIndex = queuedItemIndexes.get(error.getIndex());
+                    if (error.getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                        missedItemIndexes.add(error.getIndex());
+                    }
+                    results[itemIndex] = error.getCategory() == ErrorCategory.DUPLICATE_KEY
+                            ? buildResult(items.get(itemIndex), DecreaseQuantityStatus.NOT_ENOUGH_STOCK,
+                                    "Not enough stock for skuCode: " + items.get(itemIndex).getSkuCode())
+                            : buildResult(items.get(itemIndex), DecreaseQuantityStatus.FAILED, error.getMessage());
+                }
+            } finally {
+                // Bumped even when some operations failed, since the others were applied
+                catalogVersion.bump();
+            }
+
+            // A decrease retried under the same operation id misses because its marker is already there
+            if (decrease && operationId != null && !missedItemIndexes.isEmpty()) {
+                markAlreadyApplied(operationId, missedItemIndexes, queuedItemIndexes, queuedProductIds, items, results);
+            }
+
+            // An upsert only inserts when the product was deleted after the lookup above; undo it
+            for (BulkWriteUpsert upsert : writeResult.getUpserts()) {
+                int itemIndex = queuedItemIndexes.get(upsert.getIndex());
+                mongoTemplate.remove(Query.query(Criteria.where("_id").is(queuedProductIds.get(upsert.getIndex()))),
+                        Product.class);
+                results[itemIndex] = buildResult(items.get(itemIndex), DecreaseQuantityStatus.NOT_FOUND,
+                        "Product not found with skuCode: " + items.get(itemIndex).getSkuCode());
+            }
+        }
+
+        List<DecreaseQuantityResult> resultList = Arrays.asList(results);
+        int updated = (int) resultList.stream()
+                .filter(result -> result.getStatus() == DecreaseQuantityStatus.UPDATED)
+                .count();
+        log.info("Bulk {} quantities for {} of {} line items", decrease ? "decreased" : "increased",
+                updated, items.size());
+
+        return BulkDecreaseQuantityResponse.builder()
+                .updated(updated)
+                .failed(items.size() - updated)
+                .results(resultList)
+                .build();
+    }
+
+    private void markAlreadyApplied(String operationId, List<Integer> missedOperationIndexes,
+                                    List<Integer> queuedItemIndexes, List<String> queuedProductIds,
+                                    List<DecreaseQuantityRequest> items, DecreaseQuantityResult[] results) {
+        List<String> missedProductIds = missedOperationIndexes.stream().map(queuedProductIds::get).toList();
+        Query applied = Query.query(Criteria.where("_id").in(missedProductIds).and("stockOperations").is(operationId));
+        applied.fields().include("_id");
+        Set<String> appliedProductIds = new HashSet<>();
+        mongoTemplate.find(applied, Product.class).forEach(product -> appliedProductIds.add(product.getId()));
+
+        for (int operationIndex : missedOperationIndexes) {
+            if (appliedProductIds.contains(queuedProductIds.get(operationIndex))) {
+                int itemIndex = queuedItemIndexes.get(operationIndex);
+                results[itemIndex] = buildResult(items.get(itemIndex), DecreaseQuantityStatus.UPDATED,
+                        "Already applied by operation " + operationId);
+            }
+        }
+    }
+
+    private AggregationUpdate increaseQuantityUpdate(int requestedQuantity) {
+        Document currentQuantity = new Document("$ifNull", List.of("$quantity", 0));
+        Document currentVersion = new Document("$ifNull", List.of("$version", 0L));
+        Document setQuantity = new Document("$set",
+                new Document("quantity", new Document("$add", List.of(currentQuantity, requestedQuantity)))
+                        .append("version", new Document("$add", List.of(currentVersion, 1L))));
+        return AggregationUpdate.from(List.of(context -> setQuantity));
+    }
+
+    private DecreaseQuantityResult buildResult(DecreaseQuantityRequest item, DecreaseQuantityStatus status, String message) {
+        return DecreaseQuantityResult.builder()
+                .skuCode(item.getSkuCode())
+                .requestedQuantity(item.getQuantity())
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private static long versionOf(Product product) {
+        return product.getVersion() == null ? 0 : product.getVersion();
+    }
+
+    public static String toSkuCode(String productName) {
+        return productName == null ? null : productName.toLowerCase().replace(" ", "_");
+    }
+
     private ProductResponse mapToProductResponse(Product product) {
         return ProductResponse.builder()
                 .id(product.getId())
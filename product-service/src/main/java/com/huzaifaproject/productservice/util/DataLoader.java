@@ -2,27 +2,36 @@ package com.huzaifaproject.productservice.util;
 
 import com.huzaifaproject.productservice.model.Product;
 import com.huzaifaproject.productservice.repository.ProductRepository;
+import com.huzaifaproject.productservice.service.CatalogVersion;
+import com.huzaifaproject.productservice.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 
+// Seeds a few demo rows unless the synthetic data generator replaces them
 @Component
+@ConditionalOnProperty(name = "app.datagen.enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 public class DataLoader implements CommandLineRunner {
 
     private final ProductRepository productRepository;
+    private final CatalogVersion catalogVersion;
 
     @Override
     public void run(String... args) throws Exception {
         if (productRepository.count() < 1) {
             Product product = new Product();
             product.setName("iPhone 13");
+            product.setSkuCode(ProductService.toSkuCode(product.getName()));
             product.setDescription("iPhone 13");
             product.setPrice(BigDecimal.valueOf(1000));
 
             productRepository.save(product);
+            // The server already takes requests while this runs
+            catalogVersion.bump();
         }
     }
 }
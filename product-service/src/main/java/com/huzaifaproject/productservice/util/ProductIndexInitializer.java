@@ -0,0 +1,56 @@
+package com.huzaifaproject.productservice.util;
+
+import com.huzaifaproject.productservice.model.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on Product and fills in skuCode on products saved before it existed, so stock
+ * updates can look products up by SKU instead of scanning the catalog. Runs before the data loaders.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class ProductIndexInitializer implements CommandLineRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(String... args) {
+        ensureIndexes();
+
+        // skuCode = lower-cased name with spaces replaced by underscores, computed server-side
+        Document skuCode = new Document("$replaceAll", new Document("input", new Document("$toLower", "$name"))
+                .append("find", " ")
+                .append("replacement", "_"));
+        AggregationUpdate setSkuCode = AggregationUpdate.from(
+                List.of(context -> new Document("$set", new Document("skuCode", skuCode))));
+        Query missingSkuCode = Query.query(Criteria.where("skuCode").exists(false).and("name").type(2));
+        long backfilled = mongoTemplate.updateMulti(missingSkuCode, setSkuCode, Product.class).getModifiedCount();
+        if (backfilled > 0) {
+            log.info("Backfilled skuCode on {} products", backfilled);
+        }
+    }
+
+    // Also called after the collection has been dropped, which removes its indexes
+    public void ensureIndexes() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(Product.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Product.class)
+                .forEach(indexOperations::ensureIndex);
+    }
+}
@@ -0,0 +1,87 @@
+package com.huzaifaproject.productservice.util;
+
+import com.huzaifaproject.productservice.model.Product;
+import com.huzaifaproject.productservice.service.CatalogVersion;
+import com.huzaifaproject.productservice.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Replaces the product collection with one generated product per SKU when app.datagen.enabled is set, written
+ * with unordered bulk inserts. Names map to the SKU codes that inventory-service and order-service generate
+ * from the same seed.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datagen.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogVersion catalogVersion;
+    private final ProductIndexInitializer productIndexInitializer;
+
+    @Value("${app.datagen.seed:42}")
+    private long seed;
+
+    @Value("${app.datagen.skus:1000000}")
+    private int skus;
+
+    @Value("${app.datagen.batch-size:10000}")
+    private int batchSize;
+
+    // Share of SKUs generated with no stock
+    @Value("${app.datagen.out-of-stock-ratio:0.05}")
+    private double outOfStockRatio;
+
+    @Override
+    public void run(String... args) throws Exception {
+        long started = System.nanoTime();
+        mongoTemplate.dropCollection(Product.class);
+        productIndexInitializer.ensureIndexes();
+
+        List<Product> batch = new ArrayList<>(batchSize);
+        for (int sku = 1; sku <= skus; sku++) {
+            // "Product 0000001" has the skuCode product_0000001
+            String name = String.format("Product %07d", sku);
+            batch.add(Product.builder()
+                    .name(name)
+                    .skuCode(ProductService.toSkuCode(name))
+                    .description("Synthetic " + name)
+                    .price(price(sku))
+                    .quantity(quantity(sku))
+                    .build());
+            if (batch.size() == batchSize || sku == skus) {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class).insert(batch).execute();
+                batch.clear();
+            }
+        }
+        catalogVersion.bump();
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Generated {} products in {} s ({} docs/s)", skus,
+                String.format("%.1f", seconds), String.format("%.0f", skus / seconds));
+    }
+
+    // Must stay in step with inventory-service's generator so both services start with the same stock per SKU
+    private int quantity(int sku) {
+        SplittableRandom random = new SplittableRandom(seed * 17 + sku);
+        return random.nextDouble() < outOfStockRatio ? 0 : random.nextInt(1, 1000);
+    }
+
+    // Must stay in step with order-service's generator so line items carry the catalog price
+    private BigDecimal price(int sku) {
+        return BigDecimal.valueOf(new SplittableRandom(seed * 31 + sku).nextInt(500, 200_500), 2);
+    }
+}